@@ -0,0 +1,56 @@
+package com.java.dnc.school_manager.config;
+
+import com.java.dnc.school_manager.service.ChangeFeed;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class ChangeFeedConfig {
+
+    @Value("${change-feed.history:10000}")
+    private int history;
+
+    @Value("${change-feed.buffer:1000}")
+    private int buffer;
+
+    @Value("${change-feed.max-subscribers:200}")
+    private int maxSubscribers;
+
+    @Value("${change-feed.timeout:30m}")
+    private Duration timeout;
+
+    @Value("${change-feed.heartbeat:15s}")
+    private Duration heartbeat;
+
+    @Bean
+    public ChangeFeed studentChangeFeed() {
+        return new ChangeFeed("students", history, buffer, maxSubscribers, timeout, heartbeat);
+    }
+
+    @Bean
+    public ChangeFeed teacherChangeFeed() {
+        return new ChangeFeed("teachers", history, buffer, maxSubscribers, timeout, heartbeat);
+    }
+
+    // change_feed_dropped_total counts subscribers disconnected for falling behind
+    @Bean
+    public MeterBinder changeFeedMetrics(ChangeFeed studentChangeFeed, ChangeFeed teacherChangeFeed) {
+        return registry -> {
+            bind(registry, "students", studentChangeFeed);
+            bind(registry, "teachers", teacherChangeFeed);
+        };
+    }
+
+    private static void bind(MeterRegistry registry, String table, ChangeFeed feed) {
+        Gauge.builder("change.feed.subscribers", feed, ChangeFeed::subscriberCount).tag("table", table).register(registry);
+        FunctionCounter.builder("change.feed.events", feed, ChangeFeed::getPublished).tag("table", table).register(registry);
+        FunctionCounter.builder("change.feed.dropped", feed, ChangeFeed::getDropped).tag("table", table).register(registry);
+    }
+}
@@ -0,0 +1,48 @@
+package com.java.dnc.school_manager.config;
+
+import com.java.dnc.school_manager.service.CpfBloomFilter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class CpfFilterConfig {
+
+    @Value("${cpf-filter.expected-insertions:1000000}")
+    private long expectedInsertions;
+
+    @Value("${cpf-filter.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    @Bean
+    public CpfBloomFilter studentCpfFilter() {
+        return new CpfBloomFilter(expectedInsertions, falsePositiveRate);
+    }
+
+    @Bean
+    public CpfBloomFilter teacherCpfFilter() {
+        return new CpfBloomFilter(expectedInsertions, falsePositiveRate);
+    }
+
+    // cpf_filter_checks_total{result="negative"} counts existsByCpf queries that were skipped
+    @Bean
+    public MeterBinder cpfFilterMetrics(CpfBloomFilter studentCpfFilter, CpfBloomFilter teacherCpfFilter) {
+        return registry -> {
+            bind(registry, "students", studentCpfFilter);
+            bind(registry, "teachers", teacherCpfFilter);
+        };
+    }
+
+    private static void bind(MeterRegistry registry, String table, CpfBloomFilter filter) {
+        FunctionCounter.builder("cpf.filter.checks", filter, CpfBloomFilter::getNegatives)
+                .tags("table", table, "result", "negative").register(registry);
+        FunctionCounter.builder("cpf.filter.checks", filter, CpfBloomFilter::getPositives)
+                .tags("table", table, "result", "positive").register(registry);
+        Gauge.builder("cpf.filter.stale.ratio", filter, CpfBloomFilter::staleRatio)
+                .tag("table", table).register(registry);
+    }
+}
@@ -0,0 +1,81 @@
+package com.java.dnc.school_manager.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import com.java.dnc.school_manager.model.Student;
+import com.java.dnc.school_manager.model.Teacher;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.time.Duration;
+import java.util.List;
+import java.util.OptionalLong;
+
+/**
+ * Hibernate second-level cache regions, held in a Caffeine-backed JCache manager built here
+ * so their size and TTL come from application.properties. Entity regions use READ_WRITE,
+ * so update and delete replace or evict the cached row in the same transaction.
+ */
+@Configuration
+public class EntityCacheConfig {
+
+    private static final List<String> ENTITY_REGIONS = List.of(Student.class.getName(), Teacher.class.getName());
+
+    @Value("${entity-cache.max-size:10000}")
+    private long maxSize;
+
+    @Value("${entity-cache.ttl:10m}")
+    private Duration ttl;
+
+    @Value("${entity-cache.query-max-size:10000}")
+    private long queryMaxSize;
+
+    @Value("${entity-cache.query-ttl:5m}")
+    private Duration queryTtl;
+
+    @Bean(destroyMethod = "close")
+    public CacheManager entityCacheManager() {
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName()).getCacheManager();
+        for (String region : ENTITY_REGIONS) {
+            createIfAbsent(cacheManager, region, maxSize, ttl);
+        }
+        createIfAbsent(cacheManager, RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME, queryMaxSize, queryTtl);
+        // Last-modified time per table; must outlive every cached query result, so never evicted
+        createIfAbsent(cacheManager, RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME, 0, null);
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer entityCacheCustomizer(CacheManager entityCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, entityCacheManager);
+    }
+
+    // Hit and miss counters per region (cache_gets_total{cache="..."})
+    @Bean
+    public MeterBinder entityCacheMetrics(CacheManager entityCacheManager) {
+        return registry -> {
+            for (String region : entityCacheManager.getCacheNames()) {
+                JCacheMetrics.monitor(registry, entityCacheManager.getCache(region));
+            }
+        };
+    }
+
+    private static void createIfAbsent(CacheManager cacheManager, String region, long maxSize, Duration ttl) {
+        if (cacheManager.getCache(region) != null) {
+            return;
+        }
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(maxSize > 0 ? OptionalLong.of(maxSize) : OptionalLong.empty());
+        configuration.setExpireAfterWrite(ttl != null ? OptionalLong.of(ttl.toNanos()) : OptionalLong.empty());
+        configuration.setStatisticsEnabled(true);
+        cacheManager.createCache(region, configuration);
+    }
+}
@@ -0,0 +1,29 @@
+package com.java.dnc.school_manager.config;
+
+import com.java.dnc.school_manager.service.NameIndex;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class NameIndexConfig {
+
+    @Bean
+    public NameIndex studentNameIndex() {
+        return new NameIndex();
+    }
+
+    @Bean
+    public NameIndex teacherNameIndex() {
+        return new NameIndex();
+    }
+
+    @Bean
+    public MeterBinder nameIndexMetrics(NameIndex studentNameIndex, NameIndex teacherNameIndex) {
+        return registry -> {
+            Gauge.builder("name.index.size", studentNameIndex, NameIndex::size).tag("table", "students").register(registry);
+            Gauge.builder("name.index.size", teacherNameIndex, NameIndex::size).tag("table", "teachers").register(registry);
+        };
+    }
+}
@@ -0,0 +1,28 @@
+package com.java.dnc.school_manager.config;
+
+import com.java.dnc.school_manager.service.CircuitBreaker;
+import com.java.dnc.school_manager.service.RetryPolicy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class ViaCepResilienceConfig {
+
+    @Bean
+    public CircuitBreaker viaCepCircuitBreaker(@Value("${viacep.circuit.failure-threshold:5}") int failureThreshold,
+                                               @Value("${viacep.circuit.open-duration:30s}") Duration openDuration) {
+        return new CircuitBreaker(failureThreshold, openDuration);
+    }
+
+    @Bean
+    public RetryPolicy viaCepRetryPolicy(@Value("${viacep.retry.max-attempts:3}") int maxAttempts,
+                                         @Value("${viacep.retry.backoff:100ms}") Duration backoff,
+                                         @Value("${viacep.retry.max-backoff:1s}") Duration maxBackoff,
+                                         @Value("${viacep.retry.budget-ratio:0.1}") double budgetRatio,
+                                         @Value("${viacep.retry.budget-max:10}") double budgetMax) {
+        return new RetryPolicy(maxAttempts, backoff, maxBackoff, budgetRatio, budgetMax);
+    }
+}
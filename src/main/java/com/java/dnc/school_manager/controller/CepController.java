@@ -0,0 +1,74 @@
+package com.java.dnc.school_manager.controller;
+
+import com.java.dnc.school_manager.dto.ViaCepHttpStats;
+import com.java.dnc.school_manager.service.CepImportService;
+import com.java.dnc.school_manager.service.ViaCepService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.core5.pool.PoolStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+
+@RestController
+@RequestMapping("/api/cep")
+public class CepController {
+
+    @Autowired
+    private ViaCepService viaCepService;
+
+    @Autowired
+    private CepImportService cepImportService;
+
+    @Autowired
+    private PoolingHttpClientConnectionManager httpConnectionManager;
+
+    // Body is the raw dataset (CSV or JSON lines, optionally gzipped); it is streamed, never buffered.
+    // Form content types are not accepted because the container would consume the body as parameters.
+    @PostMapping(value = "/import", consumes = {"text/csv", "text/plain", "application/json", MediaType.APPLICATION_NDJSON_VALUE,
+            "application/gzip", MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    public ResponseEntity<?> importDataset(@RequestParam(required = false) String format, HttpServletRequest request) {
+        String resolvedFormat = format;
+        if (resolvedFormat == null && request.getContentType() != null && request.getContentType().contains("csv")) {
+            resolvedFormat = CepImportService.FORMAT_CSV;
+        }
+        try {
+            return ResponseEntity.ok(cepImportService.importDataset(request.getInputStream(), resolvedFormat));
+        } catch (IllegalArgumentException | IOException ex) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(ex.getMessage());
+        } catch (IllegalStateException ex) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(ex.getMessage());
+        }
+    }
+
+    @GetMapping("/cache/stats")
+    public ResponseEntity<?> cacheStats() {
+        return ResponseEntity.ok(viaCepService.getCacheStats());
+    }
+
+    @GetMapping("/store/stats")
+    public ResponseEntity<?> storeStats() {
+        return ResponseEntity.ok(viaCepService.getStoreStats());
+    }
+
+    @GetMapping("/http/stats")
+    public ResponseEntity<?> httpStats() {
+        ViaCepHttpStats stats = viaCepService.getHttpStats();
+        PoolStats pool = httpConnectionManager.getTotalStats();
+        stats.setLeasedConnections(pool.getLeased());
+        stats.setAvailableConnections(pool.getAvailable());
+        stats.setPendingConnections(pool.getPending());
+        stats.setMaxConnections(pool.getMax());
+        return ResponseEntity.ok(stats);
+    }
+
+    @DeleteMapping("/cache")
+    public ResponseEntity<?> clearCache() {
+        viaCepService.clearCache();
+        return ResponseEntity.noContent().build();
+    }
+}
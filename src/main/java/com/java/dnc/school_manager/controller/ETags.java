@@ -0,0 +1,119 @@
+package com.java.dnc.school_manager.controller;
+
+import com.java.dnc.school_manager.exception.PreconditionFailedException;
+import com.java.dnc.school_manager.model.Person;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Validators for the student and teacher resources.
+ * <p>
+ * A single record is tagged with its {@code @Version} and dated with its {@code updatedAt}. The tag
+ * is strong, so each encoding gets its own: {@code "3"} for JSON, {@code "3-cbor"} and
+ * {@code "3-smile"} for the binary formats, picked from {@code Accept} the way Spring MVC picks the
+ * converter. Strong tags are never gzipped by Tomcat, so the encoding is all that varies. A list
+ * is tagged with a hash of the (id, version) pairs it holds plus its paging fields, so it changes
+ * whenever any listed record, the page boundaries or the total change. List tags are weak: the
+ * same list is served as JSON, CBOR or Smile, gzipped or not, and Tomcat only compresses
+ * responses without a strong tag. Spring answers
+ * {@code If-None-Match}/{@code If-Modified-Since} on GET with a 304 before the body is serialised.
+ */
+final class ETags {
+
+    // Tag suffix of each encoding, in the order Spring MVC tries the converters
+    private static final Map<MediaType, String> ENCODINGS = new LinkedHashMap<>();
+
+    static {
+        ENCODINGS.put(MediaType.APPLICATION_JSON, "");
+        ENCODINGS.put(MediaType.APPLICATION_CBOR, "-cbor");
+        ENCODINGS.put(new MediaType("application", "x-jackson-smile"), "-smile");
+    }
+
+    private ETags() {
+    }
+
+    // Adds ETag and Last-Modified when the entity has been persisted
+    static ResponseEntity.BodyBuilder tag(ResponseEntity.BodyBuilder response, Person person, String accept) {
+        if (person.getVersion() != null) {
+            response.eTag(of(person, accept));
+        }
+        if (person.getUpdatedAt() != null) {
+            response.lastModified(person.getUpdatedAt());
+        }
+        return response;
+    }
+
+    static String of(Person person, String accept) {
+        return "\"" + person.getVersion() + suffix(accept) + "\"";
+    }
+
+    // Highest quality wins, ties go to the earliest Accept entry; anything Spring would refuse is tagged as JSON
+    private static String suffix(String accept) {
+        List<MediaType> acceptable;
+        try {
+            acceptable = accept == null || accept.isBlank() ? List.of(MediaType.ALL) : MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException ex) {
+            return "";
+        }
+        List<MediaType> compatible = new ArrayList<>();
+        for (MediaType requested : acceptable) {
+            for (MediaType encoding : ENCODINGS.keySet()) {
+                if (requested.isCompatibleWith(encoding)) {
+                    compatible.add(encoding.copyQualityValue(requested));
+                }
+            }
+        }
+        // Stable, so equal qualities keep the Accept order like MimeTypeUtils.sortBySpecificity does
+        return compatible.stream()
+                .sorted(Comparator.comparingDouble(MediaType::getQualityValue).reversed())
+                .findFirst()
+                .map(selected -> ENCODINGS.get(selected.removeQualityValue()))
+                .orElse("");
+    }
+
+    static String ofList(List<? extends Person> items, Object... paging) {
+        // 64-bit FNV-1a over the paging fields and the (id, version) pairs
+        long hash = 0xcbf29ce484222325L ^ Arrays.hashCode(paging);
+        for (Person person : items) {
+            hash = (hash ^ Objects.hashCode(person.getId())) * 0x100000001b3L;
+            hash = (hash ^ Objects.hashCode(person.getVersion())) * 0x100000001b3L;
+        }
+        return "W/\"l" + items.size() + "-" + Long.toHexString(hash) + "\"";
+    }
+
+    /**
+     * Version required by an {@code If-Match} header: null when the header is absent or {@code *}.
+     * The tag of any encoding names the same version. Weak or foreign tags can never match
+     * strongly, so they fail the precondition.
+     */
+    static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            String value = tag.substring(1, tag.length() - 1);
+            for (String suffix : ENCODINGS.values()) {
+                if (!suffix.isEmpty() && value.endsWith(suffix)) {
+                    value = value.substring(0, value.length() - suffix.length());
+                    break;
+                }
+            }
+            try {
+                return Long.parseLong(value);
+            } catch (NumberFormatException ignored) {
+                // falls through to the failed precondition
+            }
+        }
+        throw new PreconditionFailedException("If-Match does not match the current version: " + ifMatch);
+    }
+}
@@ -0,0 +1,21 @@
+package com.java.dnc.school_manager.controller;
+
+import com.java.dnc.school_manager.service.AddressEnrichmentService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/enrichment")
+public class EnrichmentController {
+
+    @Autowired
+    private AddressEnrichmentService addressEnrichmentService;
+
+    @GetMapping("/status")
+    public ResponseEntity<?> status() {
+        return ResponseEntity.ok(addressEnrichmentService.getStatus());
+    }
+}
@@ -1,17 +1,36 @@
 package com.java.dnc.school_manager.controller;
 
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.java.dnc.school_manager.dto.CursorPageResponse;
+import com.java.dnc.school_manager.dto.LookupRequest;
+import com.java.dnc.school_manager.dto.LookupResult;
+import com.java.dnc.school_manager.dto.PageResponse;
 import com.java.dnc.school_manager.dto.StudentDTO;
+import com.java.dnc.school_manager.dto.StudentSearch;
+import com.java.dnc.school_manager.exception.CepServiceUnavailableException;
 import com.java.dnc.school_manager.exception.DuplicateCpfException;
 import com.java.dnc.school_manager.exception.InvalidCepException;
+import com.java.dnc.school_manager.exception.InvalidCpfException;
+import com.java.dnc.school_manager.exception.PreconditionFailedException;
 import com.java.dnc.school_manager.exception.ResourceNotFoundException;
+import com.java.dnc.school_manager.exception.SubscriberLimitException;
 import com.java.dnc.school_manager.model.Student;
 import com.java.dnc.school_manager.service.StudentService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.util.zip.GZIPOutputStream;
 import java.util.List;
 
 @RestController
@@ -21,46 +40,183 @@ public class StudentController {
     @Autowired
     private StudentService studentService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // No parameters: full list; ids=1,2,3: multi-get; page/size/sort: offset page; cursor (may be empty): keyset page
     @GetMapping
-    public ResponseEntity<?> findAll() {
+    public ResponseEntity<?> findAll(@RequestParam(required = false) List<Long> ids,
+                                     @RequestParam(required = false) Integer page,
+                                     @RequestParam(required = false) Integer size,
+                                     @RequestParam(required = false) String sort,
+                                     @RequestParam(required = false) String cursor,
+                                     @RequestParam(required = false) String fields) {
         try {
-            return ResponseEntity.ok(studentService.findAll());
+            if (ids != null) {
+                LookupResult<Student> result = studentService.lookup(ids, null);
+                return ResponseEntity.ok().eTag(ETags.ofList(result.getContent(), result.getMissingIds())).body(result);
+            }
+            // fields=id,name,...: the same listings with only those columns
+            if (fields != null) {
+                if (cursor != null) {
+                    return ResponseEntity.ok(studentService.findAfter(cursor, size, fields));
+                }
+                if (page != null || size != null || sort != null) {
+                    return ResponseEntity.ok(studentService.findPage(page, size, sort, fields));
+                }
+                return ResponseEntity.ok(studentService.findAll(fields));
+            }
+            if (cursor != null) {
+                CursorPageResponse<Student> result = studentService.findAfter(cursor, size);
+                return ResponseEntity.ok().eTag(ETags.ofList(result.getContent(), result.getSize(), result.getNextCursor())).body(result);
+            }
+            if (page != null || size != null || sort != null) {
+                PageResponse<Student> result = studentService.findPage(page, size, sort);
+                return ResponseEntity.ok().eTag(ETags.ofList(result.getContent(), result.getPage(), result.getSize(),
+                        result.getTotalElements())).body(result);
+            }
+            List<Student> students = studentService.findAll();
+            return ResponseEntity.ok().eTag(ETags.ofList(students)).body(students);
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(ex.getMessage());
         } catch (Exception ex) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(ex.getMessage());
         }
     }
 
+    // e.g. /search?city=Sao Paulo&uf=SP&registrationFrom=2024-01-01&page=0&size=20&sort=name
+    @GetMapping("/search")
+    public ResponseEntity<?> search(StudentSearch filter,
+                                    @RequestParam(required = false) Integer page,
+                                    @RequestParam(required = false) Integer size,
+                                    @RequestParam(required = false) String sort,
+                                    @RequestParam(required = false) String fields) {
+        try {
+            if (fields != null) {
+                return ResponseEntity.ok(studentService.search(filter, page, size, sort, fields));
+            }
+            return ResponseEntity.ok(studentService.search(filter, page, size, sort));
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(ex.getMessage());
+        }
+    }
+
+    // Typeahead: /suggest?q=joao sil&limit=10, best match first
+    @GetMapping("/suggest")
+    public ResponseEntity<?> suggest(@RequestParam String q, @RequestParam(required = false) Integer limit) {
+        try {
+            return ResponseEntity.ok(studentService.suggest(q, limit));
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(ex.getMessage());
+        }
+    }
+
+    // Change feed as Server-Sent Events; Last-Event-ID (or ?after= on the first connection) resumes after that event
+    @GetMapping(value = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> changes(@RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId,
+                                              @RequestParam(required = false) Long after) {
+        try {
+            return ResponseEntity.ok(studentService.changes(lastEventId != null ? lastEventId : after));
+        } catch (SubscriberLimitException ex) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "5").build();
+        }
+    }
+
+    // Every student as NDJSON, written while it is read from the database
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(defaultValue = "false") boolean gzip) {
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                GZIPOutputStream compressed = new GZIPOutputStream(out, 1 << 16);
+                studentService.exportNdjson(compressed);
+                compressed.finish();
+            } else {
+                studentService.exportNdjson(out);
+            }
+        };
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
+    // Conditional GET: If-None-Match / If-Modified-Since get a 304 without a body; fields= returns only those columns
     @GetMapping("/{id}")
-    public ResponseEntity<?> findById(@PathVariable Long id) {
+    public ResponseEntity<?> findById(@PathVariable Long id, @RequestParam(required = false) String fields,
+                                      @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
         try {
-            return ResponseEntity.ok(studentService.findById(id));
+            if (fields != null) {
+                return ResponseEntity.ok(studentService.findById(id, fields));
+            }
+            Student student = studentService.findById(id);
+            return ETags.tag(ResponseEntity.ok(), student, accept).body(student);
         } catch (ResourceNotFoundException ex) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ex.getMessage());
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(ex.getMessage());
         }
     }
 
     @PostMapping
-    public ResponseEntity<?> create(@Valid @RequestBody StudentDTO dto) {
+    public ResponseEntity<?> create(@Valid @RequestBody StudentDTO dto,
+                                    @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
         try {
             Student created = studentService.create(dto);
-            return ResponseEntity.status(HttpStatus.CREATED).body(created);
+            return ETags.tag(ResponseEntity.status(HttpStatus.CREATED), created, accept).body(created);
         } catch (DuplicateCpfException ex) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(ex.getMessage());
+        } catch (InvalidCpfException ex) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(ex.getMessage());
         } catch (InvalidCepException ex) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(ex.getMessage());
+        } catch (CepServiceUnavailableException ex) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(ex.getMessage());
+        }
+    }
+
+    // Multi-get for long lists: {"ids": [1, 2], "cpfs": ["123.456.789-09"]}
+    @PostMapping("/lookup")
+    public ResponseEntity<?> lookup(@RequestBody LookupRequest request) {
+        try {
+            return ResponseEntity.ok(studentService.lookup(request.getIds(), request.getCpfs()));
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(ex.getMessage());
+        }
+    }
+
+    // Accepts a JSON array or NDJSON; records are parsed one at a time as they are imported
+    @PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<?> bulkCreate(HttpServletRequest request) {
+        try (MappingIterator<StudentDTO> records = objectMapper.readerFor(StudentDTO.class).readValues(request.getInputStream())) {
+            return ResponseEntity.ok(studentService.bulkCreate(records));
+        } catch (IOException ex) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(ex.getMessage());
         }
     }
 
+    // With If-Match the update only applies to that version (412 otherwise)
     @PutMapping("/{id}")
-    public ResponseEntity<?> update(@PathVariable Long id, @Valid @RequestBody StudentDTO dto) {
+    public ResponseEntity<?> update(@PathVariable Long id, @Valid @RequestBody StudentDTO dto,
+                                    @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                    @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
         try {
-            return ResponseEntity.ok(studentService.update(id, dto));
+            Student updated = studentService.update(id, dto, ETags.expectedVersion(ifMatch));
+            return ETags.tag(ResponseEntity.ok(), updated, accept).body(updated);
         } catch (ResourceNotFoundException ex) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ex.getMessage());
+        } catch (PreconditionFailedException ex) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(ex.getMessage());
+        } catch (ObjectOptimisticLockingFailureException ex) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("Student was modified concurrently, retry the update");
         } catch (DuplicateCpfException ex) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(ex.getMessage());
+        } catch (InvalidCpfException ex) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(ex.getMessage());
         } catch (InvalidCepException ex) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(ex.getMessage());
+        } catch (CepServiceUnavailableException ex) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(ex.getMessage());
         }
     }
 
@@ -0,0 +1,20 @@
+package com.java.dnc.school_manager.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkImportResult {
+    private int total;
+    private int created;
+    private int failed;
+    private long elapsedMillis;
+    private double recordsPerSecond;
+    private List<BulkRowResult> rows = new ArrayList<>();
+}
@@ -0,0 +1,19 @@
+package com.java.dnc.school_manager.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkRowResult {
+    public static final String CREATED = "CREATED";
+    public static final String FAILED = "FAILED";
+
+    private int index;
+    private String status;
+    private Long id;
+    private String cpf;
+    private String message;
+}
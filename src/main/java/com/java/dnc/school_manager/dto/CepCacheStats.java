@@ -0,0 +1,17 @@
+package com.java.dnc.school_manager.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CepCacheStats {
+    private long size;
+    private long hits;
+    private long misses;
+    private double hitRate;
+    private long evictions;
+    private double averageLoadMillis;
+}
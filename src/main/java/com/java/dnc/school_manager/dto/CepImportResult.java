@@ -0,0 +1,18 @@
+package com.java.dnc.school_manager.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CepImportResult {
+    private String format;
+    private long rowsRead;
+    private long rowsImported;
+    private long rowsSkipped;
+    private long elapsedMillis;
+    private double rowsPerSecond;
+    private long peakHeapBytes;
+}
@@ -0,0 +1,15 @@
+package com.java.dnc.school_manager.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CepStoreStats {
+    private boolean enabled;
+    private String path;
+    private int size;
+    private int capacity;
+}
@@ -0,0 +1,25 @@
+package com.java.dnc.school_manager.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+// One entry of a change feed; the record itself is read with GET /{entityId} when needed
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangeEvent {
+
+    public enum Action {
+        CREATED, UPDATED, DELETED
+    }
+
+    // Sequence number, also sent as the SSE event id
+    private long id;
+    private Action action;
+    private Long entityId;
+    private Long version;
+    private Instant at;
+}
@@ -0,0 +1,21 @@
+package com.java.dnc.school_manager.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+public class EnrichmentStatus {
+    private boolean asyncEnabled;
+    private long pendingStudents;
+    private long pendingTeachers;
+    private long resolvedTotal;
+    private long invalidTotal;
+    private long deferredTotal;
+    private Instant lastRunAt;
+    private long lastRunRows;
+    private double lastRunMillis;
+    private double rowsPerSecond;
+}
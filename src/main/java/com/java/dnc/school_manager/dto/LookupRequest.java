@@ -0,0 +1,12 @@
+package com.java.dnc.school_manager.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class LookupRequest {
+    private List<Long> ids;
+    // Masked or plain; looked up like findByCpf
+    private List<String> cpfs;
+}
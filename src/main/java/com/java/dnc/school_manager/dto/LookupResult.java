@@ -0,0 +1,18 @@
+package com.java.dnc.school_manager.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LookupResult<T> {
+    // In request order: ids first, then CPFs; a record matched twice appears once
+    private List<T> content;
+    private List<Long> missingIds;
+    // As sent by the client
+    private List<String> missingCpfs;
+}
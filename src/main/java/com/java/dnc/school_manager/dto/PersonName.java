@@ -0,0 +1,5 @@
+package com.java.dnc.school_manager.dto;
+
+// Columns read to rebuild the name index
+public record PersonName(Long id, String name, String email) {
+}
@@ -0,0 +1,20 @@
+package com.java.dnc.school_manager.dto;
+
+import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+
+// Filters of GET /api/students/search; absent fields are ignored
+@Data
+public class StudentSearch {
+    private String city;
+    private String uf;
+    private String neighborhood;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate registrationFrom;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate registrationTo;
+}
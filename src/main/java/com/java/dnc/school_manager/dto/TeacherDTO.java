@@ -1,5 +1,7 @@
 package com.java.dnc.school_manager.dto;
 
+import com.java.dnc.school_manager.validation.ValidCep;
+import com.java.dnc.school_manager.validation.ValidCpf;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import lombok.AllArgsConstructor;
@@ -18,6 +20,7 @@ public class TeacherDTO {
     private String name;
 
     @NotBlank(message = "CPF is required")
+    @ValidCpf
     private String cpf;
 
     @NotBlank(message = "Email is required")
@@ -30,6 +33,7 @@ public class TeacherDTO {
     private LocalDate hiringDate;
 
     @NotBlank(message = "CEP is required")
+    @ValidCep
     private String cep;
     private String street;
     private String number;
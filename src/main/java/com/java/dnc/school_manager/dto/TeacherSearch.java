@@ -0,0 +1,21 @@
+package com.java.dnc.school_manager.dto;
+
+import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+
+// Filters of GET /api/teachers/search; absent fields are ignored
+@Data
+public class TeacherSearch {
+    private String city;
+    private String uf;
+    private String neighborhood;
+    private String subject;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate hiringFrom;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate hiringTo;
+}
@@ -0,0 +1,33 @@
+package com.java.dnc.school_manager.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ViaCepHttpStats {
+    private long requests;
+    private long failures;
+    private double averageLatencyMillis;
+    private double maxLatencyMillis;
+    private int availableRequestSlots;
+    private String circuitState;
+    private double retryTokens;
+
+    // Connection pool, filled in by the controller
+    private int leasedConnections;
+    private int availableConnections;
+    private int pendingConnections;
+    private int maxConnections;
+
+    public ViaCepHttpStats(long requests, long failures, double averageLatencyMillis, double maxLatencyMillis,
+                           int availableRequestSlots) {
+        this.requests = requests;
+        this.failures = failures;
+        this.averageLatencyMillis = averageLatencyMillis;
+        this.maxLatencyMillis = maxLatencyMillis;
+        this.availableRequestSlots = availableRequestSlots;
+    }
+}
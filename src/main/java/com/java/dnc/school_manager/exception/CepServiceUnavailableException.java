@@ -0,0 +1,11 @@
+package com.java.dnc.school_manager.exception;
+
+public class CepServiceUnavailableException extends RuntimeException {
+    public CepServiceUnavailableException(String message) {
+        super(message);
+    }
+
+    public CepServiceUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
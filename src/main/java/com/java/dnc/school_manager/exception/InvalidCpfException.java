@@ -0,0 +1,7 @@
+package com.java.dnc.school_manager.exception;
+
+public class InvalidCpfException extends RuntimeException {
+    public InvalidCpfException(String message) {
+        super(message);
+    }
+}
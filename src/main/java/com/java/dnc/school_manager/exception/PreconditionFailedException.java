@@ -0,0 +1,7 @@
+package com.java.dnc.school_manager.exception;
+
+public class PreconditionFailedException extends RuntimeException {
+    public PreconditionFailedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.java.dnc.school_manager.exception;
+
+public class SubscriberLimitException extends RuntimeException {
+    public SubscriberLimitException(String message) {
+        super(message);
+    }
+}
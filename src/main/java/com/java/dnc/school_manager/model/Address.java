@@ -1,6 +1,8 @@
 package com.java.dnc.school_manager.model;
 
 import jakarta.persistence.Embeddable;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
 import jakarta.persistence.SecondaryTable;
 import lombok.Data;
 
@@ -14,4 +16,7 @@ public class Address {
     private String neighborhood;
     private String city;
     private String uf;
+
+    @Enumerated(EnumType.STRING)
+    private AddressStatus addressStatus;
 }
@@ -0,0 +1,10 @@
+package com.java.dnc.school_manager.model;
+
+public enum AddressStatus {
+    // Address completed with ViaCEP data
+    RESOLVED,
+    // Saved with the fields sent by the client while ViaCEP was unavailable, waiting for enrichment
+    PENDING,
+    // Set by the enrichment worker when ViaCEP says the CEP does not exist; never retried
+    INVALID
+}
@@ -0,0 +1,20 @@
+package com.java.dnc.school_manager.model;
+
+import com.java.dnc.school_manager.util.CpfUtils;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+// Stores the CPF as an 8-byte number; lookups and the unique index compare numbers instead of strings
+@Converter
+public class CpfConverter implements AttributeConverter<String, Long> {
+
+    @Override
+    public Long convertToDatabaseColumn(String cpf) {
+        return cpf == null ? null : CpfUtils.toNumber(cpf);
+    }
+
+    @Override
+    public String convertToEntityAttribute(Long cpf) {
+        return cpf == null ? null : CpfUtils.fromNumber(cpf);
+    }
+}
@@ -3,14 +3,21 @@ package com.java.dnc.school_manager.model;
 import jakarta.persistence.*;
 import lombok.Data;
 
+import java.time.Instant;
+
 @MappedSuperclass
 @Data
 public abstract class Person {
 
-    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // One sequence for both tables; ids are reserved 50 at a time so inserts can be batched
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "person_seq")
+    @SequenceGenerator(name = "person_seq", sequenceName = "person_seq", allocationSize = 50)
     private Long id;
     @Column(nullable = false)
     private String name;
+    // Normalised 11 digits, stored as a BIGINT
+    @Convert(converter = CpfConverter.class)
     @Column(unique = true, nullable = false)
     String cpf;
     @Column(nullable = false)
@@ -21,4 +28,18 @@ public abstract class Person {
     @Embedded
     private Address address;
 
+    // Bumped by every update; served as the ETag and compared with If-Match
+    @Version
+    @Column(nullable = false)
+    private Long version;
+    // Served as Last-Modified
+    @Column(nullable = false)
+    private Instant updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    void touch() {
+        updatedAt = Instant.now();
+    }
+
 }
@@ -1,11 +1,56 @@
 package com.java.dnc.school_manager.repository;
 
+import com.java.dnc.school_manager.dto.PersonName;
+import com.java.dnc.school_manager.model.AddressStatus;
 import com.java.dnc.school_manager.model.Student;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface StudentRepository extends JpaRepository<Student, Long> {
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
+
+public interface StudentRepository extends JpaRepository<Student, Long>, JpaSpecificationExecutor<Student> {
+    // Results kept in the query cache; invalidated whenever the table changes
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     Optional<Student> findByCpf(String cpf);
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     boolean existsByCpf(String cpf);
+
+    List<Student> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    // Backlog of the address enrichment worker, walked by id (idx_students_address_status)
+    List<Student> findByAddressAddressStatusAndIdGreaterThanOrderByIdAsc(AddressStatus status, Long id, Limit limit);
+    long countByAddressAddressStatus(AddressStatus status);
+
+    // Multi-get by CPF; one IN query per chunk of BatchLookup.CHUNK_SIZE
+    List<Student> findByCpfIn(Collection<String> cpfs);
+
+    @Query("select s.cpf from Student s where s.cpf in :cpfs")
+    List<String> findExistingCpfs(@Param("cpfs") Collection<String> cpfs);
+
+    // Server-side cursor for exports; must be consumed inside a transaction
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("select s from Student s order by s.id")
+    Stream<Student> streamAll();
+
+    // Feeds the CPF Bloom filter rebuild; must be consumed inside a transaction
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("select s.cpf from Student s")
+    Stream<String> streamCpfs();
+
+    // Feeds the name index rebuild; must be consumed inside a transaction
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("select new com.java.dnc.school_manager.dto.PersonName(s.id, s.name, s.email) from Student s")
+    Stream<PersonName> streamNames();
 }
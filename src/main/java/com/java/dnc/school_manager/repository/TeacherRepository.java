@@ -1,11 +1,56 @@
 package com.java.dnc.school_manager.repository;
 
+import com.java.dnc.school_manager.dto.PersonName;
+import com.java.dnc.school_manager.model.AddressStatus;
 import com.java.dnc.school_manager.model.Teacher;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface TeacherRepository extends JpaRepository<Teacher, Long> {
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
+
+public interface TeacherRepository extends JpaRepository<Teacher, Long>, JpaSpecificationExecutor<Teacher> {
+    // Results kept in the query cache; invalidated whenever the table changes
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     Optional<Teacher> findByCpf(String cpf);
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     boolean existsByCpf(String cpf);
+
+    List<Teacher> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    // Backlog of the address enrichment worker, walked by id (idx_teachers_address_status)
+    List<Teacher> findByAddressAddressStatusAndIdGreaterThanOrderByIdAsc(AddressStatus status, Long id, Limit limit);
+    long countByAddressAddressStatus(AddressStatus status);
+
+    // Multi-get by CPF; one IN query per chunk of BatchLookup.CHUNK_SIZE
+    List<Teacher> findByCpfIn(Collection<String> cpfs);
+
+    @Query("select t.cpf from Teacher t where t.cpf in :cpfs")
+    List<String> findExistingCpfs(@Param("cpfs") Collection<String> cpfs);
+
+    // Server-side cursor for exports; must be consumed inside a transaction
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("select t from Teacher t order by t.id")
+    Stream<Teacher> streamAll();
+
+    // Feeds the CPF Bloom filter rebuild; must be consumed inside a transaction
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("select t.cpf from Teacher t")
+    Stream<String> streamCpfs();
+
+    // Feeds the name index rebuild; must be consumed inside a transaction
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("select new com.java.dnc.school_manager.dto.PersonName(t.id, t.name, t.email) from Teacher t")
+    Stream<PersonName> streamNames();
 }
@@ -0,0 +1,190 @@
+package com.java.dnc.school_manager.service;
+
+import com.java.dnc.school_manager.dto.ChangeEvent;
+import com.java.dnc.school_manager.dto.EnrichmentStatus;
+import com.java.dnc.school_manager.dto.ViaCepResponse;
+import com.java.dnc.school_manager.model.Address;
+import com.java.dnc.school_manager.model.AddressStatus;
+import com.java.dnc.school_manager.model.Person;
+import com.java.dnc.school_manager.repository.StudentRepository;
+import com.java.dnc.school_manager.repository.TeacherRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Background worker that fills in addresses saved with {@link AddressStatus#PENDING}.
+ * Each batch resolves its distinct CEPs in parallel (cache, local index, then ViaCEP) and
+ * writes the updated rows with a single saveAll. A run walks the backlog once in id order, so
+ * rows whose CEP could not be looked up stay pending for the next run without holding back the
+ * rows behind them. Every resolved row is published on its table's change feed.
+ */
+@Service
+public class AddressEnrichmentService {
+
+    private static final Logger log = LoggerFactory.getLogger(AddressEnrichmentService.class);
+
+    private final StudentRepository studentRepository;
+    private final TeacherRepository teacherRepository;
+    private final ViaCepService viaCepService;
+    private final ChangeFeed studentChangeFeed;
+    private final ChangeFeed teacherChangeFeed;
+    private final int batchSize;
+    private final boolean asyncEnabled;
+
+    private final LongAdder resolvedTotal = new LongAdder();
+    private final LongAdder invalidTotal = new LongAdder();
+    private final LongAdder deferredTotal = new LongAdder();
+    private volatile Instant lastRunAt;
+    private volatile long lastRunRows;
+    private volatile long lastRunNanos;
+
+    public AddressEnrichmentService(StudentRepository studentRepository, TeacherRepository teacherRepository,
+                                    ViaCepService viaCepService,
+                                    @Qualifier("studentChangeFeed") ChangeFeed studentChangeFeed,
+                                    @Qualifier("teacherChangeFeed") ChangeFeed teacherChangeFeed,
+                                    @Value("${enrichment.batch-size:500}") int batchSize,
+                                    @Value("${enrichment.async:false}") boolean asyncEnabled) {
+        this.studentRepository = studentRepository;
+        this.teacherRepository = teacherRepository;
+        this.viaCepService = viaCepService;
+        this.studentChangeFeed = studentChangeFeed;
+        this.teacherChangeFeed = teacherChangeFeed;
+        this.batchSize = batchSize;
+        this.asyncEnabled = asyncEnabled;
+    }
+
+    @Scheduled(fixedDelayString = "${enrichment.interval:1s}", initialDelayString = "${enrichment.interval:1s}")
+    public void enrichPending() {
+        long start = System.nanoTime();
+        long rows = drain(studentRepository::findByAddressAddressStatusAndIdGreaterThanOrderByIdAsc, studentRepository::saveAll, studentChangeFeed)
+                + drain(teacherRepository::findByAddressAddressStatusAndIdGreaterThanOrderByIdAsc, teacherRepository::saveAll, teacherChangeFeed);
+        if (rows > 0) {
+            lastRunAt = Instant.now();
+            lastRunRows = rows;
+            lastRunNanos = System.nanoTime() - start;
+        }
+    }
+
+    public EnrichmentStatus getStatus() {
+        EnrichmentStatus status = new EnrichmentStatus();
+        status.setAsyncEnabled(asyncEnabled);
+        status.setPendingStudents(studentRepository.countByAddressAddressStatus(AddressStatus.PENDING));
+        status.setPendingTeachers(teacherRepository.countByAddressAddressStatus(AddressStatus.PENDING));
+        status.setResolvedTotal(resolvedTotal.sum());
+        status.setInvalidTotal(invalidTotal.sum());
+        status.setDeferredTotal(deferredTotal.sum());
+        status.setLastRunAt(lastRunAt);
+        long rows = lastRunRows;
+        long nanos = lastRunNanos;
+        status.setLastRunRows(rows);
+        status.setLastRunMillis(nanos / 1_000_000.0);
+        status.setRowsPerSecond(nanos == 0 ? 0 : rows * 1_000_000_000.0 / nanos);
+        return status;
+    }
+
+    // Processes the pending rows batch by batch, each one starting after the last id of the previous
+    private <E extends Person> long drain(PendingQuery<E> findPending, Function<List<E>, List<E>> saveAll, ChangeFeed changeFeed) {
+        long processed = 0;
+        long lastId = 0;
+        while (true) {
+            List<E> batch = findPending.find(AddressStatus.PENDING, lastId, Limit.of(batchSize));
+            if (batch.isEmpty()) {
+                return processed;
+            }
+            lastId = batch.get(batch.size() - 1).getId();
+            Map<String, ViaCepResponse> resolved = resolveAll(batch);
+            List<E> changed = new ArrayList<>(batch.size());
+            for (E entity : batch) {
+                ViaCepResponse viaCep = resolved.get(entity.getAddress().getCep());
+                if (viaCep == null) {
+                    deferredTotal.increment();
+                    continue;
+                }
+                apply(entity.getAddress(), viaCep);
+                changed.add(entity);
+            }
+            if (!changed.isEmpty()) {
+                try {
+                    saveAll.apply(changed).forEach(entity -> changeFeed.publish(ChangeEvent.Action.UPDATED, entity));
+                    processed += changed.size();
+                } catch (ObjectOptimisticLockingFailureException ex) {
+                    // A row was updated while its CEP was looked up; the batch is retried on the next run
+                    log.debug("Enrichment batch left pending after a concurrent update: {}", ex.getMessage());
+                }
+            }
+            if (batch.size() < batchSize) {
+                return processed;
+            }
+        }
+    }
+
+    // Repository query for the pending rows after an id, in id order
+    @FunctionalInterface
+    private interface PendingQuery<E> {
+        List<E> find(AddressStatus status, Long afterId, Limit limit);
+    }
+
+    // One lookup per distinct CEP; CEPs that could not be looked up are left out of the map
+    private Map<String, ViaCepResponse> resolveAll(List<? extends Person> batch) {
+        Set<String> ceps = new LinkedHashSet<>();
+        for (Person person : batch) {
+            ceps.add(person.getAddress().getCep());
+        }
+        Map<String, Future<ViaCepResponse>> futures = new HashMap<>();
+        Map<String, ViaCepResponse> resolved = new HashMap<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (String cep : ceps) {
+                futures.put(cep, executor.submit(() -> viaCepService.fetchAddress(cep)));
+            }
+            for (Map.Entry<String, Future<ViaCepResponse>> entry : futures.entrySet()) {
+                try {
+                    resolved.put(entry.getKey(), entry.getValue().get());
+                } catch (ExecutionException ex) {
+                    log.debug("CEP {} left pending: {}", entry.getKey(), ex.getCause().getMessage());
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+        return resolved;
+    }
+
+    // Values sent by the client win over ViaCEP, as on synchronous creation
+    private void apply(Address address, ViaCepResponse viaCep) {
+        if (viaCep.getError() != null) {
+            address.setAddressStatus(AddressStatus.INVALID);
+            invalidTotal.increment();
+            return;
+        }
+        if (address.getStreet() == null) {
+            address.setStreet(viaCep.getStreet());
+        }
+        if (address.getNeighborhood() == null) {
+            address.setNeighborhood(viaCep.getNeighborhood());
+        }
+        if (address.getCity() == null) {
+            address.setCity(viaCep.getCity());
+        }
+        if (address.getUf() == null) {
+            address.setUf(viaCep.getUf());
+        }
+        address.setAddressStatus(AddressStatus.RESOLVED);
+        resolvedTotal.increment();
+    }
+}
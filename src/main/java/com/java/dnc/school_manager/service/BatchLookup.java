@@ -0,0 +1,94 @@
+package com.java.dnc.school_manager.service;
+
+import com.java.dnc.school_manager.dto.LookupResult;
+import com.java.dnc.school_manager.model.Person;
+import com.java.dnc.school_manager.util.CpfUtils;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Shared multi-get used by the lookup endpoints of {@link StudentService} and {@link TeacherService}.
+ * Distinct ids and CPFs are resolved with {@code IN} queries of at most {@link #CHUNK_SIZE} keys;
+ * CPFs that fail the check digits, or that the Bloom filter rules out, are reported missing without a query.
+ */
+class BatchLookup<E extends Person> {
+
+    static final int CHUNK_SIZE = 1000;
+    static final int MAX_KEYS = 10_000;
+
+    private final Function<List<Long>, List<E>> findByIds;
+    private final Predicate<String> mightContainCpf;
+    private final Function<List<String>, List<E>> findByCpfs;
+
+    BatchLookup(Function<List<Long>, List<E>> findByIds, Predicate<String> mightContainCpf,
+                Function<List<String>, List<E>> findByCpfs) {
+        this.findByIds = findByIds;
+        this.mightContainCpf = mightContainCpf;
+        this.findByCpfs = findByCpfs;
+    }
+
+    LookupResult<E> run(Collection<Long> ids, Collection<String> cpfs) {
+        // Counted as sent, before deduplicating, so an oversized request never costs the sets below
+        int requested = (ids == null ? 0 : ids.size()) + (cpfs == null ? 0 : cpfs.size());
+        if (requested > MAX_KEYS) {
+            throw new IllegalArgumentException("At most " + MAX_KEYS + " ids and CPFs per lookup");
+        }
+        Set<Long> idKeys = new LinkedHashSet<>();
+        if (ids != null) {
+            ids.stream().filter(Objects::nonNull).forEach(idKeys::add);
+        }
+        // CPFs as sent (reported back that way when missing) and their distinct normalised keys
+        Set<String> sentCpfs = new LinkedHashSet<>();
+        if (cpfs != null) {
+            cpfs.stream().filter(Objects::nonNull).forEach(sentCpfs::add);
+        }
+        Set<String> cpfKeys = new LinkedHashSet<>();
+        for (String cpf : sentCpfs) {
+            if (CpfUtils.isValid(cpf)) {
+                cpfKeys.add(CpfUtils.normalize(cpf));
+            }
+        }
+
+        Map<Long, E> byId = new HashMap<>();
+        for (List<Long> chunk : chunks(idKeys)) {
+            findByIds.apply(chunk).forEach(entity -> byId.put(entity.getId(), entity));
+        }
+        Map<String, E> byCpf = new HashMap<>();
+        List<String> candidates = cpfKeys.stream().filter(mightContainCpf).toList();
+        for (List<String> chunk : chunks(candidates)) {
+            findByCpfs.apply(chunk).forEach(entity -> byCpf.put(entity.getCpf(), entity));
+        }
+
+        Map<Long, E> found = new LinkedHashMap<>();
+        List<Long> missingIds = new ArrayList<>();
+        for (Long id : idKeys) {
+            E entity = byId.get(id);
+            if (entity == null) {
+                missingIds.add(id);
+            } else {
+                found.put(id, entity);
+            }
+        }
+        List<String> missingCpfs = new ArrayList<>();
+        for (String cpf : sentCpfs) {
+            E entity = CpfUtils.isValid(cpf) ? byCpf.get(CpfUtils.normalize(cpf)) : null;
+            if (entity == null) {
+                missingCpfs.add(cpf);
+            } else {
+                found.putIfAbsent(entity.getId(), entity);
+            }
+        }
+        return new LookupResult<>(new ArrayList<>(found.values()), missingIds, missingCpfs);
+    }
+
+    private static <T> List<List<T>> chunks(Collection<T> keys) {
+        List<T> all = new ArrayList<>(keys);
+        List<List<T>> chunks = new ArrayList<>();
+        for (int from = 0; from < all.size(); from += CHUNK_SIZE) {
+            chunks.add(all.subList(from, Math.min(from + CHUNK_SIZE, all.size())));
+        }
+        return chunks;
+    }
+}
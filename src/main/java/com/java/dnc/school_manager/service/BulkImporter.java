@@ -0,0 +1,241 @@
+package com.java.dnc.school_manager.service;
+
+import com.java.dnc.school_manager.dto.BulkImportResult;
+import com.java.dnc.school_manager.dto.BulkRowResult;
+import com.java.dnc.school_manager.dto.ViaCepResponse;
+import com.java.dnc.school_manager.exception.CepServiceUnavailableException;
+import com.java.dnc.school_manager.model.Person;
+import com.java.dnc.school_manager.util.CepUtils;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Shared chunked import used by the bulk endpoints of {@link StudentService} and {@link TeacherService}.
+ * Each chunk is validated per record, checked for existing CPFs with one set-based query,
+ * resolved with one ViaCEP lookup per distinct CEP (made concurrently) and persisted with a single saveAll.
+ * Without a {@link ViaCepService} (async enrichment) no lookup is made and every address is saved
+ * as pending for {@link AddressEnrichmentService}, the same as a single create.
+ */
+class BulkImporter<D, E extends Person> {
+
+    static final int CHUNK_SIZE = 500;
+    private static final Object UNAVAILABLE = new Object();
+
+    private final Validator validator;
+    private final ViaCepService viaCepService;
+    private final Function<D, String> cpfOf;
+    private final Function<D, String> cepOf;
+    private final Predicate<D> hasFallbackAddress;
+    private final Function<Collection<String>, Collection<String>> existingCpfs;
+    private final BiFunction<D, ViaCepResponse, E> mapper;
+    private final Function<List<E>, List<E>> saveAll;
+
+    BulkImporter(Validator validator, ViaCepService viaCepService,
+                 Function<D, String> cpfOf, Function<D, String> cepOf, Predicate<D> hasFallbackAddress,
+                 Function<Collection<String>, Collection<String>> existingCpfs,
+                 BiFunction<D, ViaCepResponse, E> mapper, Function<List<E>, List<E>> saveAll) {
+        this.validator = validator;
+        this.viaCepService = viaCepService;
+        this.cpfOf = cpfOf;
+        this.cepOf = cepOf;
+        this.hasFallbackAddress = hasFallbackAddress;
+        this.existingCpfs = existingCpfs;
+        this.mapper = mapper;
+        this.saveAll = saveAll;
+    }
+
+    BulkImportResult run(Iterator<D> records) {
+        long start = System.nanoTime();
+        BulkImportResult result = new BulkImportResult();
+        Set<String> seenCpfs = new HashSet<>();
+        List<D> chunk = new ArrayList<>(CHUNK_SIZE);
+        int index = 0;
+
+        while (true) {
+            D record;
+            try {
+                if (!records.hasNext()) {
+                    break;
+                }
+                record = records.next();
+            } catch (RuntimeException ex) {
+                // A malformed record leaves the parser in an unknown state, so the import stops here
+                processChunk(chunk, index - chunk.size(), seenCpfs, result);
+                chunk.clear();
+                result.getRows().add(new BulkRowResult(index, BulkRowResult.FAILED, null, null,
+                        "Malformed record, import stopped: " + ex.getMessage()));
+                index++;
+                break;
+            }
+            chunk.add(record);
+            index++;
+            if (chunk.size() == CHUNK_SIZE) {
+                processChunk(chunk, index - chunk.size(), seenCpfs, result);
+                chunk.clear();
+            }
+        }
+        processChunk(chunk, index - chunk.size(), seenCpfs, result);
+
+        result.setTotal(index);
+        result.setCreated((int) result.getRows().stream().filter(r -> BulkRowResult.CREATED.equals(r.getStatus())).count());
+        result.setFailed(result.getTotal() - result.getCreated());
+        long elapsedNanos = Math.max(1, System.nanoTime() - start);
+        result.setElapsedMillis(elapsedNanos / 1_000_000);
+        result.setRecordsPerSecond(index * 1_000_000_000.0 / elapsedNanos);
+        return result;
+    }
+
+    private void processChunk(List<D> chunk, int firstIndex, Set<String> seenCpfs, BulkImportResult result) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        BulkRowResult[] rows = new BulkRowResult[chunk.size()];
+
+        // Per-record validation and CPFs already saved by an earlier chunk of this import
+        List<Integer> candidates = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            D dto = chunk.get(i);
+            String cpf = cpfOf.apply(dto);
+            Set<ConstraintViolation<D>> violations = validator.validate(dto);
+            if (!violations.isEmpty()) {
+                rows[i] = failed(firstIndex + i, cpf, violations.stream()
+                        .map(ConstraintViolation::getMessage).sorted().collect(Collectors.joining("; ")));
+            } else if (seenCpfs.contains(cpf)) {
+                rows[i] = failed(firstIndex + i, cpf, "CPF repeated in import: " + cpf);
+            } else {
+                candidates.add(i);
+            }
+        }
+
+        // One query for all CPFs of the chunk
+        if (!candidates.isEmpty()) {
+            Set<String> cpfs = candidates.stream().map(i -> cpfOf.apply(chunk.get(i))).collect(Collectors.toSet());
+            Set<String> existing = new HashSet<>(existingCpfs.apply(cpfs));
+            candidates.removeIf(i -> {
+                String cpf = cpfOf.apply(chunk.get(i));
+                if (existing.contains(cpf)) {
+                    rows[i] = failed(firstIndex + i, cpf, "CPF already registered: " + cpf);
+                    return true;
+                }
+                return false;
+            });
+        }
+
+        // One lookup per distinct CEP, whatever the spelling ("01310-100" and "01310100" are the same)
+        Map<String, Object> addresses = Map.of();
+        if (viaCepService != null) {
+            Set<String> ceps = new LinkedHashSet<>();
+            for (Integer i : candidates) {
+                ceps.add(cepKey(chunk.get(i)));
+            }
+            addresses = resolveAll(ceps);
+        }
+
+        // A CPF is taken by the first row of the chunk that can be saved; a row that fails does not
+        // block a later one with the same CPF
+        List<Integer> accepted = new ArrayList<>(candidates.size());
+        List<E> entities = new ArrayList<>(candidates.size());
+        Set<String> chunkCpfs = new HashSet<>();
+        for (Integer i : candidates) {
+            D dto = chunk.get(i);
+            String cpf = cpfOf.apply(dto);
+            Object address = addresses.get(cepKey(dto));
+            boolean usable = viaCepService == null || address instanceof ViaCepResponse
+                    || address == UNAVAILABLE && hasFallbackAddress.test(dto);
+            if (usable && !chunkCpfs.add(cpf)) {
+                rows[i] = failed(firstIndex + i, cpf, "CPF repeated in import: " + cpf);
+            } else if (viaCepService == null) {
+                // Async enrichment: the CEP is looked up later by the enrichment worker
+                accepted.add(i);
+                entities.add(mapper.apply(dto, null));
+            } else if (address instanceof ViaCepResponse viaCep) {
+                accepted.add(i);
+                entities.add(mapper.apply(dto, viaCep));
+            } else if (address == UNAVAILABLE && hasFallbackAddress.test(dto)) {
+                // Degraded mode: keep the client's address and flag it for enrichment
+                accepted.add(i);
+                entities.add(mapper.apply(dto, null));
+            } else if (address == UNAVAILABLE) {
+                rows[i] = failed(firstIndex + i, cpf, "ViaCEP unavailable for CEP " + cepOf.apply(dto));
+            } else {
+                rows[i] = failed(firstIndex + i, cpf, (String) address);
+            }
+        }
+
+        if (!entities.isEmpty()) {
+            try {
+                List<E> saved = saveAll.apply(entities);
+                for (int j = 0; j < accepted.size(); j++) {
+                    E entity = saved.get(j);
+                    rows[accepted.get(j)] = new BulkRowResult(firstIndex + accepted.get(j), BulkRowResult.CREATED,
+                            entity.getId(), entity.getCpf(), null);
+                }
+                // Only saved CPFs count as taken for the rest of the import
+                seenCpfs.addAll(chunkCpfs);
+            } catch (RuntimeException ex) {
+                for (Integer i : accepted) {
+                    rows[i] = failed(firstIndex + i, cpfOf.apply(chunk.get(i)), "Could not save record: " + ex.getMessage());
+                }
+            }
+        }
+        result.getRows().addAll(Arrays.asList(rows));
+    }
+
+    private String cepKey(D dto) {
+        String cep = cepOf.apply(dto);
+        String normalized = CepUtils.normalizeOrNull(cep);
+        return normalized != null ? normalized : cep;
+    }
+
+    // Looks every CEP up on its own virtual thread, so a chunk waits for the slowest lookup, not the sum
+    private Map<String, Object> resolveAll(Set<String> ceps) {
+        Map<String, Future<Object>> futures = new HashMap<>();
+        Map<String, Object> resolved = new HashMap<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (String cep : ceps) {
+                futures.put(cep, executor.submit(() -> resolve(cep)));
+            }
+            for (Map.Entry<String, Future<Object>> entry : futures.entrySet()) {
+                try {
+                    resolved.put(entry.getKey(), entry.getValue().get());
+                } catch (ExecutionException ex) {
+                    resolved.put(entry.getKey(), "Could not resolve CEP " + entry.getKey() + ": " + ex.getCause().getMessage());
+                } catch (InterruptedException ex) {
+                    // Rows of the lookups not collected fail as if ViaCEP were down
+                    Thread.currentThread().interrupt();
+                    resolved.put(entry.getKey(), UNAVAILABLE);
+                }
+            }
+        }
+        return resolved;
+    }
+
+    // Either the resolved address, UNAVAILABLE, or the reason it could not be used
+    private Object resolve(String cep) {
+        try {
+            ViaCepResponse viaCep = viaCepService.fetchAddress(cep);
+            if (viaCep == null || viaCep.getError() != null) {
+                return "Invalid CEP: " + cep;
+            }
+            return viaCep;
+        } catch (CepServiceUnavailableException ex) {
+            return UNAVAILABLE;
+        } catch (RuntimeException ex) {
+            return "Could not resolve CEP " + cep + ": " + ex.getMessage();
+        }
+    }
+
+    private static BulkRowResult failed(int index, String cpf, String message) {
+        return new BulkRowResult(index, BulkRowResult.FAILED, null, cpf, message);
+    }
+}
@@ -0,0 +1,286 @@
+package com.java.dnc.school_manager.service;
+
+import com.java.dnc.school_manager.dto.CepStoreStats;
+import com.java.dnc.school_manager.dto.ViaCepResponse;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * On-disk CEP -> address index backed by a memory-mapped file.
+ * <p>
+ * The file is an open-addressing hash table of fixed-size records, so a lookup reads
+ * straight from the mapped region and nothing is loaded into the heap at startup.
+ * Record layout (256 bytes): int key (CEP as number, 0 = empty slot), int sequence, then
+ * length-prefixed UTF-8 fields for street, complement, neighborhood, city and uf.
+ * <p>
+ * The sequence is a per-record seqlock: it is odd while {@link #put} rewrites the fields of a
+ * key that is already visible, and a reader that sees it odd or changed across its read retries.
+ */
+@Component
+public class CepAddressStore {
+
+    private static final Logger log = LoggerFactory.getLogger(CepAddressStore.class);
+
+    private static final int MAGIC = 0x43455031; // "CEP1"
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 64;
+    private static final int SIZE_OFFSET = 16;
+    static final int RECORD_SIZE = 256;
+    static final int MAX_CAPACITY = 1 << 22;
+    private static final double MAX_LOAD_FACTOR = 0.9;
+
+    private static final int SEQUENCE_OFFSET = Integer.BYTES;
+    private static final int FIELDS_OFFSET = 2 * Integer.BYTES;
+
+    // Field widths including the length byte: street, complement, neighborhood, city, uf
+    private static final int[] FIELD_WIDTHS = {108, 40, 48, 48, 4};
+
+    // Slot keys and sequences are published with release/acquire semantics so readers never need a lock
+    private static final VarHandle INT = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+
+    private final boolean enabled;
+    private final Path path;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int capacity;
+    private int mask;
+    private int maxSize;
+    private volatile int size;
+
+    public CepAddressStore(@Value("${viacep.store.enabled:true}") boolean enabled,
+                           @Value("${viacep.store.path:data/cep-index.dat}") String path,
+                           @Value("${viacep.store.capacity:2097152}") int capacity) {
+        this.enabled = enabled;
+        this.path = Path.of(path);
+        if (enabled) {
+            open(tableSizeFor(capacity));
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Returns the stored address for an 8-digit CEP, or null when it is not indexed
+    public ViaCepResponse get(String cleanCep) {
+        int key = toKey(cleanCep);
+        if (!enabled || key <= 0) {
+            return null;
+        }
+        int offset = find(key);
+        if (offset < 0 || (int) INT.getAcquire(buffer, offset) != key) {
+            return null;
+        }
+        return read(offset, key);
+    }
+
+    // Stores a resolved address; returns false when the store is disabled, full or the CEP is malformed
+    public synchronized boolean put(String cleanCep, ViaCepResponse response) {
+        int key = toKey(cleanCep);
+        if (!enabled || key <= 0 || response.getError() != null) {
+            return false;
+        }
+        int offset = find(key);
+        if (offset < 0) {
+            return false;
+        }
+        boolean isNew = (int) INT.getAcquire(buffer, offset) != key;
+        if (isNew && size >= maxSize) {
+            log.warn("CEP store {} is full ({} entries), ignoring CEP {}", path, size, cleanCep);
+            return false;
+        }
+
+        // Writers are serialised by the monitor, so the sequence is only ever changed here
+        int sequence = (int) INT.get(buffer, offset + SEQUENCE_OFFSET);
+        INT.setOpaque(buffer, offset + SEQUENCE_OFFSET, sequence + 1);
+        VarHandle.storeStoreFence();
+        int position = offset + FIELDS_OFFSET;
+        position = writeField(position, FIELD_WIDTHS[0], response.getStreet());
+        position = writeField(position, FIELD_WIDTHS[1], response.getComplement());
+        position = writeField(position, FIELD_WIDTHS[2], response.getNeighborhood());
+        position = writeField(position, FIELD_WIDTHS[3], response.getCity());
+        writeField(position, FIELD_WIDTHS[4], response.getUf());
+        INT.setRelease(buffer, offset + SEQUENCE_OFFSET, sequence + 2);
+        INT.setRelease(buffer, offset, key);
+
+        if (isNew) {
+            size++;
+            buffer.putInt(SIZE_OFFSET, size);
+        }
+        return true;
+    }
+
+    public synchronized void flush() {
+        if (enabled) {
+            buffer.force();
+        }
+    }
+
+    public CepStoreStats getStats() {
+        return new CepStoreStats(enabled, path.toAbsolutePath().toString(), size, capacity);
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            buffer.force();
+            channel.close();
+            channel = null;
+        }
+    }
+
+    private void open(int requestedCapacity) {
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            boolean exists = Files.exists(path) && Files.size(path) >= HEADER_SIZE;
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            if (exists && isOlderVersion()) {
+                log.warn("CEP store {} uses an older record layout; starting it empty, re-run the CEP import", path);
+                channel.truncate(0);
+                exists = false;
+            }
+
+            int fileCapacity = requestedCapacity;
+            if (exists) {
+                MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+                if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION || header.getInt(8) != RECORD_SIZE) {
+                    throw new IllegalStateException("Unrecognised CEP store file: " + path);
+                }
+                fileCapacity = header.getInt(12);
+            }
+
+            long length = HEADER_SIZE + (long) fileCapacity * RECORD_SIZE;
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, length);
+            if (!exists) {
+                buffer.putInt(0, MAGIC);
+                buffer.putInt(4, VERSION);
+                buffer.putInt(8, RECORD_SIZE);
+                buffer.putInt(12, fileCapacity);
+                buffer.putInt(SIZE_OFFSET, 0);
+            }
+            capacity = fileCapacity;
+            mask = capacity - 1;
+            maxSize = (int) (capacity * MAX_LOAD_FACTOR);
+            size = buffer.getInt(SIZE_OFFSET);
+            log.info("CEP store {} opened with {} of {} slots in use", path, size, capacity);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not open CEP store " + path, ex);
+        }
+    }
+
+    private boolean isOlderVersion() throws IOException {
+        MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+        return header.getInt(0) == MAGIC && header.getInt(4) < VERSION;
+    }
+
+    // Linear probing; returns the offset of the slot holding the key or the first empty slot
+    private int find(int key) {
+        int slot = mix(key) & mask;
+        for (int probe = 0; probe < capacity; probe++) {
+            int offset = HEADER_SIZE + slot * RECORD_SIZE;
+            int current = (int) INT.getAcquire(buffer, offset);
+            if (current == key || current == 0) {
+                return offset;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    // Retries until it reads the fields without a put overlapping it
+    private ViaCepResponse read(int offset, int key) {
+        while (true) {
+            int sequence = (int) INT.getAcquire(buffer, offset + SEQUENCE_OFFSET);
+            if ((sequence & 1) != 0) {
+                Thread.onSpinWait();
+                continue;
+            }
+            int position = offset + FIELDS_OFFSET;
+            ViaCepResponse response = new ViaCepResponse();
+            response.setCep(formatCep(key));
+            response.setStreet(readField(position, FIELD_WIDTHS[0]));
+            position += FIELD_WIDTHS[0];
+            response.setComplement(readField(position, FIELD_WIDTHS[1]));
+            position += FIELD_WIDTHS[1];
+            response.setNeighborhood(readField(position, FIELD_WIDTHS[2]));
+            position += FIELD_WIDTHS[2];
+            response.setCity(readField(position, FIELD_WIDTHS[3]));
+            position += FIELD_WIDTHS[3];
+            response.setUf(readField(position, FIELD_WIDTHS[4]));
+            VarHandle.loadLoadFence();
+            if ((int) INT.getOpaque(buffer, offset + SEQUENCE_OFFSET) == sequence) {
+                return response;
+            }
+        }
+    }
+
+    private String readField(int position, int width) {
+        // A torn length byte is discarded by the sequence check, but must not read past the field
+        int length = Math.min(buffer.get(position) & 0xFF, width - 1);
+        if (length == 0) {
+            return "";
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(position + 1, bytes, 0, length);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int writeField(int position, int width, String value) {
+        byte[] bytes = value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+        int length = Math.min(bytes.length, width - 1);
+        // Never cut a multi-byte character in half
+        while (length > 0 && length < bytes.length && (bytes[length] & 0xC0) == 0x80) {
+            length--;
+        }
+        buffer.put(position, (byte) length);
+        buffer.put(position + 1, bytes, 0, length);
+        return position + width;
+    }
+
+    static int toKey(String cleanCep) {
+        if (cleanCep == null || cleanCep.length() != 8) {
+            return -1;
+        }
+        int key = 0;
+        for (int i = 0; i < 8; i++) {
+            char c = cleanCep.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            key = key * 10 + (c - '0');
+        }
+        return key;
+    }
+
+    private static String formatCep(int key) {
+        String digits = String.format("%08d", key);
+        return digits.substring(0, 5) + "-" + digits.substring(5);
+    }
+
+    private static int tableSizeFor(int capacity) {
+        long rounded = Long.highestOneBit(Math.max(capacity, 16) * 2L - 1);
+        return (int) Math.min(rounded, MAX_CAPACITY);
+    }
+
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
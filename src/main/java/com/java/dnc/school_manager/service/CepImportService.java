@@ -0,0 +1,242 @@
+package com.java.dnc.school_manager.service;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.java.dnc.school_manager.dto.CepImportResult;
+import com.java.dnc.school_manager.dto.ViaCepResponse;
+import com.java.dnc.school_manager.util.CepUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Streams a full CEP dataset (CSV or JSON lines, optionally gzipped) into the local {@link CepAddressStore},
+ * one row at a time, so ViaCEP is only needed for CEPs missing from the dataset.
+ */
+@Service
+public class CepImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(CepImportService.class);
+
+    public static final String FORMAT_CSV = "csv";
+    public static final String FORMAT_JSONL = "jsonl";
+
+    // Default CSV column order when the file has no header
+    private static final String[] DEFAULT_COLUMNS = {"cep", "logradouro", "complemento", "bairro", "localidade", "uf"};
+
+    private final CepAddressStore cepAddressStore;
+    private final ViaCepService viaCepService;
+    private final ObjectMapper objectMapper;
+
+    public CepImportService(CepAddressStore cepAddressStore, ViaCepService viaCepService, ObjectMapper objectMapper) {
+        this.cepAddressStore = cepAddressStore;
+        this.viaCepService = viaCepService;
+        this.objectMapper = objectMapper;
+    }
+
+    public CepImportResult importDataset(InputStream input, String format) throws IOException {
+        if (!cepAddressStore.isEnabled()) {
+            throw new IllegalStateException("CEP store is disabled (viacep.store.enabled=false)");
+        }
+        String resolvedFormat = format == null ? FORMAT_JSONL : format.toLowerCase(Locale.ROOT);
+        if (!FORMAT_CSV.equals(resolvedFormat) && !FORMAT_JSONL.equals(resolvedFormat)) {
+            throw new IllegalArgumentException("Unsupported CEP dataset format: " + format);
+        }
+
+        resetHeapPeaks();
+        long start = System.nanoTime();
+        Counters counters = new Counters();
+
+        try (InputStream data = decompressIfNeeded(input)) {
+            if (FORMAT_CSV.equals(resolvedFormat)) {
+                importCsv(data, counters);
+            } else {
+                importJsonLines(data, counters);
+            }
+        }
+        cepAddressStore.flush();
+        // Cached "unknown CEP" answers may now be resolvable locally
+        viaCepService.clearCache();
+
+        long elapsedMillis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        CepImportResult result = new CepImportResult(resolvedFormat, counters.read, counters.imported,
+                counters.read - counters.imported, elapsedMillis, counters.read * 1000.0 / elapsedMillis,
+                peakHeapUsed());
+        log.info("CEP import finished: {}", result);
+        return result;
+    }
+
+    private void importJsonLines(InputStream data, Counters counters) throws IOException {
+        try (MappingIterator<ViaCepResponse> rows = objectMapper.readerFor(ViaCepResponse.class).readValues(data)) {
+            while (rows.hasNextValue()) {
+                ViaCepResponse row = rows.nextValue();
+                counters.read++;
+                if (row.getError() == null && store(row)) {
+                    counters.imported++;
+                }
+            }
+        }
+    }
+
+    private void importCsv(InputStream data, Counters counters) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(data, StandardCharsets.UTF_8), 1 << 16);
+        String line = reader.readLine();
+        if (line == null) {
+            return;
+        }
+        char delimiter = line.indexOf(';') >= 0 && line.indexOf(',') < 0 ? ';' : ',';
+        List<String> first = parseCsvLine(line, reader, delimiter);
+        int[] columns;
+        if (CepUtils.normalizeOrNull(first.get(0)) == null) {
+            columns = columnIndexes(first.toArray(new String[0]));
+        } else {
+            columns = columnIndexes(DEFAULT_COLUMNS);
+            counters.read++;
+            if (store(toResponse(first, columns))) {
+                counters.imported++;
+            }
+        }
+
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            counters.read++;
+            if (store(toResponse(parseCsvLine(line, reader, delimiter), columns))) {
+                counters.imported++;
+            }
+        }
+    }
+
+    private boolean store(ViaCepResponse row) {
+        String cep = CepUtils.normalizeOrNull(row.getCep());
+        return cep != null && cepAddressStore.put(cep, row);
+    }
+
+    // Maps cep, street, complement, neighborhood, city and uf to their CSV column (-1 when absent)
+    private static int[] columnIndexes(String[] header) {
+        int[] columns = {-1, -1, -1, -1, -1, -1};
+        for (int i = 0; i < header.length; i++) {
+            switch (header[i].trim().toLowerCase(Locale.ROOT)) {
+                case "cep" -> columns[0] = i;
+                case "logradouro", "street" -> columns[1] = i;
+                case "complemento", "complement" -> columns[2] = i;
+                case "bairro", "neighborhood" -> columns[3] = i;
+                case "localidade", "cidade", "city" -> columns[4] = i;
+                case "uf", "estado" -> columns[5] = i;
+                default -> { }
+            }
+        }
+        if (columns[0] < 0) {
+            throw new IllegalArgumentException("CEP dataset header has no 'cep' column");
+        }
+        return columns;
+    }
+
+    private static ViaCepResponse toResponse(List<String> fields, int[] columns) {
+        ViaCepResponse response = new ViaCepResponse();
+        response.setCep(field(fields, columns[0]));
+        response.setStreet(field(fields, columns[1]));
+        response.setComplement(field(fields, columns[2]));
+        response.setNeighborhood(field(fields, columns[3]));
+        response.setCity(field(fields, columns[4]));
+        response.setUf(field(fields, columns[5]));
+        return response;
+    }
+
+    private static String field(List<String> fields, int index) {
+        return index >= 0 && index < fields.size() ? fields.get(index) : "";
+    }
+
+    // RFC 4180 style: quoted fields may contain delimiters, doubled quotes and line breaks
+    static List<String> parseCsvLine(String line, BufferedReader reader, char delimiter) throws IOException {
+        List<String> fields = new ArrayList<>(8);
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        int i = 0;
+        while (true) {
+            if (i == line.length()) {
+                if (!quoted) {
+                    break;
+                }
+                String next = reader.readLine();
+                if (next == null) {
+                    break;
+                }
+                current.append('\n');
+                line = next;
+                i = 0;
+                continue;
+            }
+            char c = line.charAt(i++);
+            if (quoted) {
+                if (c == '"' && i < line.length() && line.charAt(i) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == delimiter) {
+                fields.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        fields.add(current.toString());
+        return fields;
+    }
+
+    private static InputStream decompressIfNeeded(InputStream input) throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(input, 1 << 16);
+        buffered.mark(2);
+        int first = buffered.read();
+        int second = buffered.read();
+        buffered.reset();
+        if (first == 0x1f && second == 0x8b) {
+            return new GZIPInputStream(buffered, 1 << 16);
+        }
+        return buffered;
+    }
+
+    private static void resetHeapPeaks() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    private static long peakHeapUsed() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+
+    private static class Counters {
+        long read;
+        long imported;
+    }
+}
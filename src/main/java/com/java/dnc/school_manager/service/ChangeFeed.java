@@ -0,0 +1,219 @@
+package com.java.dnc.school_manager.service;
+
+import com.java.dnc.school_manager.dto.ChangeEvent;
+import com.java.dnc.school_manager.exception.SubscriberLimitException;
+import com.java.dnc.school_manager.model.Person;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Change feed of one table, streamed to subscribers as Server-Sent Events.
+ * <p>
+ * {@link #publish} numbers the event, keeps it in a ring holding the last events and offers it to
+ * every subscriber's bounded buffer without waiting, so a write never blocks on a client. Each
+ * subscriber has a virtual thread of its own that drains its buffer into the connection.
+ * <p>
+ * A subscriber whose buffer fills up is dropped: it still gets what was buffered, then an
+ * {@code overflow} event, and the connection is closed. Reconnecting with {@code Last-Event-ID}
+ * replays the missed events from the ring. An id older than the ring gets a {@code reset} event
+ * instead, meaning the client has to read the table again. Sequence numbers start at the boot
+ * time in microseconds, so ids from before a restart always get a reset rather than a silent gap.
+ */
+public class ChangeFeed {
+
+    static final String RESET = "reset";
+    static final String OVERFLOW = "overflow";
+
+    private final String name;
+    private final ChangeEvent[] history;
+    private final int bufferSize;
+    private final int maxSubscribers;
+    private final long timeoutMillis;
+    private final long heartbeatMillis;
+
+    private final long firstSequence;
+    // Guarded by this, together with the history ring and subscriber registration
+    private long nextSequence;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final LongAdder published = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    public ChangeFeed(String name, int historySize, int bufferSize, int maxSubscribers, Duration timeout, Duration heartbeat) {
+        this.name = name;
+        this.history = new ChangeEvent[historySize];
+        this.bufferSize = bufferSize;
+        this.maxSubscribers = maxSubscribers;
+        this.timeoutMillis = timeout.toMillis();
+        this.heartbeatMillis = heartbeat.toMillis();
+        this.firstSequence = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+        this.nextSequence = firstSequence;
+    }
+
+    // Call once the change is committed
+    public void publish(ChangeEvent.Action action, Person person) {
+        synchronized (this) {
+            ChangeEvent event = new ChangeEvent(nextSequence, action, person.getId(), person.getVersion(), Instant.now());
+            history[(int) (nextSequence % history.length)] = event;
+            nextSequence++;
+            // Offered under the lock so that every subscriber sees the events in sequence order
+            for (Subscriber subscriber : subscribers) {
+                if (!subscriber.buffer.offer(event)) {
+                    drop(subscriber);
+                }
+            }
+        }
+        published.increment();
+    }
+
+    // Live events, preceded by the ones after lastEventId when it is given
+    public SseEmitter subscribe(Long lastEventId) {
+        return subscribe(lastEventId, new SseEmitter(timeoutMillis));
+    }
+
+    SseEmitter subscribe(Long lastEventId, SseEmitter emitter) {
+        Subscriber subscriber;
+        synchronized (this) {
+            if (subscribers.size() >= maxSubscribers) {
+                throw new SubscriberLimitException("The " + name + " change feed already has " + maxSubscribers + " subscribers");
+            }
+            subscriber = new Subscriber(emitter, replay(lastEventId), nextSequence - 1);
+            subscribers.add(subscriber);
+        }
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(error -> subscriber.close());
+        subscriber.start();
+        return emitter;
+    }
+
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    public long getPublished() {
+        return published.sum();
+    }
+
+    // Subscribers disconnected because their buffer was full
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    // Bean destroy method: ends every open stream
+    public void close() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.close();
+            subscriber.emitter.complete();
+        }
+    }
+
+    // Events after lastEventId still in the ring, or null when some of them are gone
+    private List<ChangeEvent> replay(Long lastEventId) {
+        if (lastEventId == null) {
+            return List.of();
+        }
+        long oldest = Math.max(firstSequence, nextSequence - history.length);
+        if (lastEventId < oldest - 1 || lastEventId >= nextSequence) {
+            return null;
+        }
+        List<ChangeEvent> events = new ArrayList<>((int) (nextSequence - lastEventId - 1));
+        for (long sequence = lastEventId + 1; sequence < nextSequence; sequence++) {
+            events.add(history[(int) (sequence % history.length)]);
+        }
+        return events;
+    }
+
+    private void drop(Subscriber subscriber) {
+        if (subscribers.remove(subscriber)) {
+            subscriber.overflowed = true;
+            dropped.increment();
+        }
+    }
+
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        // Null when the client has to start over with a reset
+        private final List<ChangeEvent> replay;
+        private final BlockingQueue<ChangeEvent> buffer = new ArrayBlockingQueue<>(bufferSize);
+        private long lastSent;
+        private volatile boolean overflowed;
+        private volatile boolean closed;
+        private volatile Thread thread;
+
+        private Subscriber(SseEmitter emitter, List<ChangeEvent> replay, long lastSent) {
+            this.emitter = emitter;
+            this.replay = replay;
+            this.lastSent = lastSent;
+        }
+
+        private void start() {
+            thread = Thread.ofVirtual().name("change-feed-" + name).start(this::run);
+        }
+
+        private void run() {
+            try {
+                if (replay == null) {
+                    emitter.send(SseEmitter.event().id(Long.toString(lastSent)).name(RESET).data(lastSent));
+                } else {
+                    for (ChangeEvent event : replay) {
+                        send(event);
+                    }
+                }
+                while (!closed) {
+                    ChangeEvent event = buffer.poll();
+                    if (event == null) {
+                        // Nothing more will be offered once dropped, so the buffer is fully sent
+                        if (overflowed) {
+                            emitter.send(SseEmitter.event().name(OVERFLOW).data(lastSent));
+                            emitter.complete();
+                            return;
+                        }
+                        event = buffer.poll(heartbeatMillis, TimeUnit.MILLISECONDS);
+                    }
+                    if (event == null) {
+                        emitter.send(SseEmitter.event().comment("keepalive"));
+                    } else {
+                        send(event);
+                    }
+                }
+            } catch (InterruptedException ex) {
+                // Closed while waiting for events
+            } catch (IOException | IllegalStateException ex) {
+                // The client went away or the emitter is already complete; the container ends the request
+            } finally {
+                close();
+            }
+        }
+
+        private void send(ChangeEvent event) throws IOException {
+            emitter.send(SseEmitter.event()
+                    .id(Long.toString(event.getId()))
+                    .name(event.getAction().name().toLowerCase(Locale.ROOT))
+                    .data(event, MediaType.APPLICATION_JSON));
+            lastSent = event.getId();
+        }
+
+        private void close() {
+            closed = true;
+            subscribers.remove(this);
+            Thread current = thread;
+            if (current != null && current != Thread.currentThread()) {
+                current.interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.java.dnc.school_manager.service;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Bloom filter over the CPFs of one table, kept in a primitive {@code long[]} bit array.
+ * <p>
+ * A negative answer is definitive, so callers can skip the {@code existsByCpf} query; a positive
+ * answer only means "maybe" and must be confirmed in the database. Until the first
+ * {@link #rebuild} finishes every answer is "maybe". Bits cannot be cleared, so removals only
+ * count towards {@link #staleRatio()} and are dropped by the next rebuild.
+ * <p>
+ * {@link #put} must be called after the row is committed: a rebuild that starts later streams
+ * the row itself, one already running receives the put as well.
+ */
+public class CpfBloomFilter {
+
+    private static final VarHandle WORDS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final long expectedInsertions;
+    private final double falsePositiveRate;
+
+    private volatile Bits bits;
+    private volatile Bits building;
+    private final LongAdder insertions = new LongAdder();
+    private final LongAdder removals = new LongAdder();
+    private final LongAdder negatives = new LongAdder();
+    private final LongAdder positives = new LongAdder();
+
+    public CpfBloomFilter(long expectedInsertions, double falsePositiveRate) {
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+    }
+
+    public boolean mightContain(String cpf) {
+        Bits current = bits;
+        if (current == null || cpf == null || current.mightContain(hash(cpf))) {
+            positives.increment();
+            return true;
+        }
+        negatives.increment();
+        return false;
+    }
+
+    public void put(String cpf) {
+        if (cpf == null) {
+            return;
+        }
+        long hash = hash(cpf);
+        Bits current = bits;
+        if (current != null) {
+            current.put(hash);
+        }
+        Bits next = building;
+        if (next != null) {
+            next.put(hash);
+        }
+        // A rebuild may have swapped the arrays between the two reads
+        Bits latest = bits;
+        if (latest != current && latest != null) {
+            latest.put(hash);
+        }
+        insertions.increment();
+    }
+
+    public void remove(String cpf) {
+        if (cpf != null) {
+            removals.increment();
+        }
+    }
+
+    /**
+     * Replaces the bit array with one filled from {@code source}, sized for {@code rowCount} rows
+     * (or the configured expectation, whichever is larger) with head-room to grow.
+     */
+    public synchronized void rebuild(long rowCount, Consumer<Consumer<String>> source) {
+        Bits next = new Bits(Math.max(expectedInsertions, rowCount * 2), falsePositiveRate);
+        building = next;
+        long[] count = {0};
+        try {
+            source.accept(cpf -> {
+                next.put(hash(cpf));
+                count[0]++;
+            });
+            bits = next;
+            insertions.reset();
+            insertions.add(count[0]);
+            removals.reset();
+        } finally {
+            building = null;
+        }
+    }
+
+    public boolean isReady() {
+        return bits != null;
+    }
+
+    // Share of the inserted CPFs that were removed since the last rebuild
+    public double staleRatio() {
+        long inserted = insertions.sum();
+        return inserted == 0 ? 0 : (double) removals.sum() / inserted;
+    }
+
+    public long getNegatives() {
+        return negatives.sum();
+    }
+
+    public long getPositives() {
+        return positives.sum();
+    }
+
+    public long getBitCount() {
+        Bits current = bits;
+        return current == null ? 0 : current.bitCount;
+    }
+
+    // CPFs are at most 11 digits, so the digits themselves are the key; anything else falls back to hashCode
+    private static long hash(String cpf) {
+        long value = 0;
+        int digits = 0;
+        for (int i = 0; i < cpf.length(); i++) {
+            char c = cpf.charAt(i);
+            if (c >= '0' && c <= '9') {
+                value = value * 10 + (c - '0');
+                digits++;
+            } else if (c != '.' && c != '-') {
+                return mix(cpf.hashCode());
+            }
+        }
+        return digits <= 18 ? mix(value) : mix(cpf.hashCode());
+    }
+
+    // MurmurHash3 finalizer
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static final class Bits {
+
+        private final long[] words;
+        private final long bitCount;
+        private final int hashCount;
+
+        Bits(long capacity, double falsePositiveRate) {
+            long n = Math.max(1, capacity);
+            long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            this.words = new long[(int) Math.max(1, (m + 63) >>> 6)];
+            this.bitCount = (long) words.length << 6;
+            this.hashCount = Math.max(1, (int) Math.round((double) m / n * Math.log(2)));
+        }
+
+        // Double hashing (Kirsch-Mitzenmacher): index_i = h1 + i * h2
+        void put(long hash) {
+            long h1 = hash;
+            long h2 = mix(hash ^ 0x9e3779b97f4a7c15L) | 1;
+            for (int i = 0; i < hashCount; i++) {
+                long index = Math.floorMod(h1 + i * h2, bitCount);
+                long mask = 1L << index;
+                int word = (int) (index >>> 6);
+                if (((long) WORDS.getAcquire(words, word) & mask) == 0) {
+                    WORDS.getAndBitwiseOrRelease(words, word, mask);
+                }
+            }
+        }
+
+        boolean mightContain(long hash) {
+            long h1 = hash;
+            long h2 = mix(hash ^ 0x9e3779b97f4a7c15L) | 1;
+            for (int i = 0; i < hashCount; i++) {
+                long index = Math.floorMod(h1 + i * h2, bitCount);
+                if (((long) WORDS.getAcquire(words, (int) (index >>> 6)) & (1L << index)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
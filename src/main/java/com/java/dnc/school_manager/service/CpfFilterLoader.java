@@ -0,0 +1,75 @@
+package com.java.dnc.school_manager.service;
+
+import com.java.dnc.school_manager.repository.StudentRepository;
+import com.java.dnc.school_manager.repository.TeacherRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Fills the CPF Bloom filters by streaming the CPF columns once the application is up, and
+ * rebuilds a filter when deletes and CPF changes have left too many stale bits.
+ */
+@Component
+public class CpfFilterLoader {
+
+    private static final Logger log = LoggerFactory.getLogger(CpfFilterLoader.class);
+
+    private final StudentRepository studentRepository;
+    private final TeacherRepository teacherRepository;
+    private final CpfBloomFilter studentCpfFilter;
+    private final CpfBloomFilter teacherCpfFilter;
+    private final TransactionTemplate readOnlyTransaction;
+    private final double maxStaleRatio;
+
+    public CpfFilterLoader(StudentRepository studentRepository, TeacherRepository teacherRepository,
+                           @Qualifier("studentCpfFilter") CpfBloomFilter studentCpfFilter,
+                           @Qualifier("teacherCpfFilter") CpfBloomFilter teacherCpfFilter,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${cpf-filter.max-stale-ratio:0.2}") double maxStaleRatio) {
+        this.studentRepository = studentRepository;
+        this.teacherRepository = teacherRepository;
+        this.studentCpfFilter = studentCpfFilter;
+        this.teacherCpfFilter = teacherCpfFilter;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.maxStaleRatio = maxStaleRatio;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadAll() {
+        rebuild("students", studentCpfFilter, studentRepository::count, studentRepository::streamCpfs);
+        rebuild("teachers", teacherCpfFilter, teacherRepository::count, teacherRepository::streamCpfs);
+    }
+
+    @Scheduled(fixedDelayString = "${cpf-filter.rebuild-check:10m}", initialDelayString = "${cpf-filter.rebuild-check:10m}")
+    public void rebuildStale() {
+        if (studentCpfFilter.staleRatio() > maxStaleRatio) {
+            rebuild("students", studentCpfFilter, studentRepository::count, studentRepository::streamCpfs);
+        }
+        if (teacherCpfFilter.staleRatio() > maxStaleRatio) {
+            rebuild("teachers", teacherCpfFilter, teacherRepository::count, teacherRepository::streamCpfs);
+        }
+    }
+
+    private void rebuild(String table, CpfBloomFilter filter, Supplier<Long> count, Supplier<Stream<String>> cpfs) {
+        long start = System.nanoTime();
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<String> stream = cpfs.get()) {
+                filter.rebuild(count.get(), sink -> stream.forEach(sink));
+            }
+        });
+        log.info("CPF filter for {} rebuilt with {} bits in {} ms", table, filter.getBitCount(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+}
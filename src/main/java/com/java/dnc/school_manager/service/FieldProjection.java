@@ -0,0 +1,170 @@
+package com.java.dnc.school_manager.service;
+
+import com.java.dnc.school_manager.dto.CursorPageResponse;
+import com.java.dnc.school_manager.dto.PageResponse;
+import com.java.dnc.school_manager.model.Person;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import jakarta.persistence.metamodel.Attribute;
+import jakarta.persistence.metamodel.EmbeddableType;
+import jakarta.persistence.metamodel.EntityType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import java.util.*;
+
+/**
+ * Sparse fieldsets ({@code fields=id,name,address.city}) shared by the read endpoints of
+ * {@link StudentService} and {@link TeacherService}.
+ * <p>
+ * Only the requested columns are selected, with a tuple query, and each row comes back as a map
+ * holding just those fields, so no entity is built, cached or fully serialised. {@code address}
+ * selects every address column; {@code address.<field>} selects one. {@code id} is always
+ * included. Field names are checked against the JPA metamodel; unknown ones are reported with
+ * {@link IllegalArgumentException}.
+ */
+class FieldProjection<T extends Person> {
+
+    private static final String ADDRESS = "address";
+
+    private final EntityManager entityManager;
+    private final Class<T> type;
+    private final Set<String> available = new TreeSet<>();
+
+    FieldProjection(EntityManager entityManager, Class<T> type) {
+        this.entityManager = entityManager;
+        this.type = type;
+        EntityType<T> entity = entityManager.getMetamodel().entity(type);
+        for (Attribute<? super T, ?> attribute : entity.getAttributes()) {
+            if (attribute.getPersistentAttributeType() == Attribute.PersistentAttributeType.EMBEDDED) {
+                EmbeddableType<?> embeddable = entityManager.getMetamodel().embeddable(attribute.getJavaType());
+                embeddable.getAttributes().forEach(nested -> available.add(attribute.getName() + "." + nested.getName()));
+            } else {
+                available.add(attribute.getName());
+            }
+        }
+    }
+
+    Optional<Map<String, Object>> byId(String fields, Long id) {
+        Specification<T> spec = (root, query, cb) -> cb.equal(root.get("id"), id);
+        return list(fields, spec, Sort.unsorted(), 0, 1).stream().findFirst();
+    }
+
+    // limit < 0 returns every row; JPA takes an int offset, so deeper pages are rejected
+    List<Map<String, Object>> list(String fields, Specification<T> spec, Sort sort, long offset, int limit) {
+        if (offset > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("page too deep: offset " + offset + " exceeds " + Integer.MAX_VALUE);
+        }
+        List<String> selected = parse(fields);
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<T> root = query.from(type);
+        List<Selection<?>> selections = new ArrayList<>(selected.size());
+        for (String field : selected) {
+            selections.add(path(root, field));
+        }
+        query.multiselect(selections);
+        where(query, root, cb, spec);
+        query.orderBy(QueryUtils.toOrders(sort, root, cb));
+
+        TypedQuery<Tuple> typed = entityManager.createQuery(query).setFirstResult((int) offset);
+        if (limit >= 0) {
+            typed.setMaxResults(limit);
+        }
+        List<Tuple> tuples = typed.getResultList();
+        List<Map<String, Object>> rows = new ArrayList<>(tuples.size());
+        for (Tuple tuple : tuples) {
+            rows.add(toRow(selected, tuple));
+        }
+        return rows;
+    }
+
+    PageResponse<Map<String, Object>> page(String fields, Specification<T> spec, Pageable pageable) {
+        List<Map<String, Object>> content = list(fields, spec, pageable.getSort(), pageable.getOffset(), pageable.getPageSize());
+        long total = content.size() < pageable.getPageSize() && (pageable.getOffset() == 0 || !content.isEmpty())
+                ? pageable.getOffset() + content.size()
+                : count(spec);
+        int totalPages = (int) ((total + pageable.getPageSize() - 1) / pageable.getPageSize());
+        return new PageResponse<>(content, pageable.getPageNumber(), pageable.getPageSize(), total, totalPages);
+    }
+
+    // Keyset page after lastId, ordered by id; mirrors Pagination.cursorPage
+    CursorPageResponse<Map<String, Object>> after(String fields, long lastId, int size) {
+        Specification<T> spec = (root, query, cb) -> cb.greaterThan(root.get("id"), lastId);
+        List<Map<String, Object>> rows = list(fields, spec, Sort.by("id"), 0, size + 1);
+        if (rows.size() <= size) {
+            return new CursorPageResponse<>(rows, rows.size(), null);
+        }
+        List<Map<String, Object>> content = rows.subList(0, size);
+        return new CursorPageResponse<>(content, size, Pagination.encodeCursor((Long) content.get(size - 1).get("id")));
+    }
+
+    private long count(Specification<T> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<T> root = query.from(type);
+        query.select(cb.count(root));
+        where(query, root, cb, spec);
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    private void where(CriteriaQuery<?> query, Root<T> root, CriteriaBuilder cb, Specification<T> spec) {
+        if (spec != null) {
+            Predicate predicate = spec.toPredicate(root, query, cb);
+            if (predicate != null) {
+                query.where(predicate);
+            }
+        }
+    }
+
+    // Requested fields in order, without duplicates, id first and "address" expanded
+    private List<String> parse(String fields) {
+        Set<String> selected = new LinkedHashSet<>();
+        selected.add("id");
+        for (String part : fields.split(",")) {
+            String field = part.trim();
+            if (field.isEmpty()) {
+                continue;
+            }
+            if (field.equals(ADDRESS)) {
+                available.stream().filter(name -> name.startsWith(ADDRESS + ".")).forEach(selected::add);
+            } else if (available.contains(field)) {
+                selected.add(field);
+            } else {
+                throw new IllegalArgumentException("Unknown field '" + field + "', use any of " + available);
+            }
+        }
+        return new ArrayList<>(selected);
+    }
+
+    private static Path<?> path(Root<?> root, String field) {
+        int dot = field.indexOf('.');
+        return dot < 0 ? root.get(field) : root.get(field.substring(0, dot)).get(field.substring(dot + 1));
+    }
+
+    // Nested fields go into a map of their own, so the JSON keeps the entity's shape
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> toRow(List<String> selected, Tuple tuple) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        for (int i = 0; i < selected.size(); i++) {
+            String field = selected.get(i);
+            int dot = field.indexOf('.');
+            if (dot < 0) {
+                row.put(field, tuple.get(i));
+            } else {
+                Map<String, Object> nested = (Map<String, Object>) row.computeIfAbsent(field.substring(0, dot), key -> new LinkedHashMap<>());
+                nested.put(field.substring(dot + 1), tuple.get(i));
+            }
+        }
+        return row;
+    }
+}
@@ -0,0 +1,396 @@
+package com.java.dnc.school_manager.service;
+
+import com.java.dnc.school_manager.dto.PersonName;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * In-memory trigram index over the names and e-mail local parts of one table, for typeahead
+ * search that ignores accents and case and tolerates typos and partial words
+ * ("joa silv" finds "João Silva").
+ * <p>
+ * Text is folded to 37 symbols (a boundary, a-z and 0-9), so every trigram is an int below
+ * 37³ and indexes straight into the postings array. Records are kept under int ordinals, which
+ * makes each posting list a plain {@code int[]}. A query ranks records by how many of its
+ * trigrams they contain, then by shorter text; the last query word is treated as a prefix.
+ * <p>
+ * Updates take the write lock. While {@link #rebuild} streams the table they are also logged and
+ * replayed on the new index before it is swapped in, so none are lost.
+ */
+public class NameIndex {
+
+    private static final int ALPHABET = 37;
+    private static final int TRIGRAMS = ALPHABET * ALPHABET * ALPHABET;
+    private static final int MAX_QUERY_TRIGRAMS = 64;
+    // A binary-search probe costs about this many sequential posting reads
+    private static final int PROBE_COST = 8;
+
+    public record Match(long id, double score) {
+    }
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Segment segment = new Segment();
+    // Updates made while a rebuild is running; guarded by lock
+    private List<Consumer<Segment>> pending;
+    private volatile boolean ready;
+
+    // Rows without an id are not saved yet and are skipped
+    public void put(Long id, String name, String email) {
+        if (id == null) {
+            return;
+        }
+        byte[] text = fold(text(name, email));
+        write(target -> target.put(id, text));
+    }
+
+    public void remove(Long id) {
+        if (id == null) {
+            return;
+        }
+        write(target -> target.remove(id));
+    }
+
+    // Best matches first; empty when the query has no letters or digits
+    public List<Match> search(String query, int limit) {
+        int[] trigrams = trigrams(fold(query), true);
+        if (trigrams.length == 0) {
+            return List.of();
+        }
+        if (trigrams.length > MAX_QUERY_TRIGRAMS) {
+            trigrams = Arrays.copyOf(trigrams, MAX_QUERY_TRIGRAMS);
+        }
+        lock.readLock().lock();
+        try {
+            return segment.search(trigrams, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces the index with one filled from {@code source}. Puts and removes made meanwhile are
+     * applied to both and replayed on the new one, in order, before the swap.
+     */
+    public synchronized void rebuild(Consumer<Consumer<PersonName>> source) {
+        Segment next = new Segment();
+        lock.writeLock().lock();
+        try {
+            pending = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        try {
+            source.accept(row -> next.put(row.id(), fold(text(row.name(), row.email()))));
+            lock.writeLock().lock();
+            try {
+                pending.forEach(update -> update.accept(next));
+                segment = next;
+                ready = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } finally {
+            lock.writeLock().lock();
+            try {
+                pending = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return segment.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void write(Consumer<Segment> update) {
+        lock.writeLock().lock();
+        try {
+            update.accept(segment);
+            if (pending != null) {
+                pending.add(update);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Domains are shared by most records, so only the part before @ is indexed
+    private static String text(String name, String email) {
+        String local = email == null ? "" : email.substring(0, Math.max(0, email.indexOf('@')));
+        return (name == null ? "" : name) + " " + local;
+    }
+
+    // Lower case without accents; every run of other characters becomes a single boundary (0)
+    static byte[] fold(String text) {
+        if (text == null) {
+            return new byte[0];
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        byte[] folded = new byte[decomposed.length()];
+        int length = 0;
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            c = Character.toLowerCase(c);
+            byte symbol = c >= 'a' && c <= 'z' ? (byte) (c - 'a' + 1)
+                    : c >= '0' && c <= '9' ? (byte) (c - '0' + 27) : 0;
+            if (symbol != 0 || (length > 0 && folded[length - 1] != 0)) {
+                folded[length++] = symbol;
+            }
+        }
+        if (length > 0 && folded[length - 1] == 0) {
+            length--;
+        }
+        return Arrays.copyOf(folded, length);
+    }
+
+    // Distinct trigrams of each word padded as "  word " (no closing boundary on the last word of
+    // a prefix query), sorted; words do not share trigrams
+    static int[] trigrams(byte[] text, boolean prefix) {
+        int[] trigrams = new int[text.length + 1];
+        int count = 0;
+        int previous2 = 0;
+        int previous1 = 0;
+        for (int i = 0; i <= text.length; i++) {
+            int symbol = i < text.length ? text[i] : 0;
+            if (symbol == 0 && (previous1 == 0 || (prefix && i == text.length))) {
+                continue;
+            }
+            trigrams[count++] = (previous2 * ALPHABET + previous1) * ALPHABET + symbol;
+            previous2 = symbol == 0 ? 0 : previous1;
+            previous1 = symbol;
+        }
+        Arrays.sort(trigrams, 0, count);
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (distinct == 0 || trigrams[distinct - 1] != trigrams[i]) {
+                trigrams[distinct++] = trigrams[i];
+            }
+        }
+        return Arrays.copyOf(trigrams, distinct);
+    }
+
+    private static final class Segment {
+
+        // Posting lists are kept sorted by ordinal so they can be probed with binary search
+        private final int[][] postings = new int[TRIGRAMS][];
+        private final int[] postingSizes = new int[TRIGRAMS];
+        private final Map<Long, Integer> ordinals = new HashMap<>();
+        private long[] ids = new long[1024];
+        private byte[][] texts = new byte[1024][];
+        private int[] freeOrdinals = new int[64];
+        private int freeCount;
+        private int nextOrdinal;
+        // Per-query hit counters, reused because at 500k records each one is half a megabyte
+        private final Queue<byte[]> hitBuffers = new ConcurrentLinkedQueue<>();
+
+        void put(long id, byte[] text) {
+            Integer existing = ordinals.get(id);
+            if (existing != null) {
+                // Only the trigrams that changed touch the postings; most updates change none
+                int[] before = trigrams(texts[existing], false);
+                int[] after = trigrams(text, false);
+                for (int trigram : before) {
+                    if (Arrays.binarySearch(after, trigram) < 0) {
+                        removePosting(trigram, existing);
+                    }
+                }
+                for (int trigram : after) {
+                    if (Arrays.binarySearch(before, trigram) < 0) {
+                        addPosting(trigram, existing);
+                    }
+                }
+                texts[existing] = text;
+                return;
+            }
+            int ordinal = freeCount > 0 ? freeOrdinals[--freeCount] : nextOrdinal++;
+            if (ordinal == ids.length) {
+                ids = Arrays.copyOf(ids, ids.length * 2);
+                texts = Arrays.copyOf(texts, texts.length * 2);
+            }
+            ids[ordinal] = id;
+            texts[ordinal] = text;
+            ordinals.put(id, ordinal);
+            for (int trigram : trigrams(text, false)) {
+                addPosting(trigram, ordinal);
+            }
+        }
+
+        void remove(long id) {
+            Integer ordinal = ordinals.remove(id);
+            if (ordinal == null) {
+                return;
+            }
+            for (int trigram : trigrams(texts[ordinal], false)) {
+                removePosting(trigram, ordinal);
+            }
+            texts[ordinal] = null;
+            if (freeCount == freeOrdinals.length) {
+                freeOrdinals = Arrays.copyOf(freeOrdinals, freeCount * 2);
+            }
+            freeOrdinals[freeCount++] = ordinal;
+        }
+
+        int size() {
+            return ordinals.size();
+        }
+
+        private byte[] borrowHits() {
+            byte[] hits = hitBuffers.poll();
+            while (hits != null && hits.length < nextOrdinal) {
+                hits = hitBuffers.poll();
+            }
+            return hits != null ? hits : new byte[ids.length];
+        }
+
+        // New ordinals are the largest, so the common case is an append
+        private void addPosting(int trigram, int ordinal) {
+            int[] list = postings[trigram];
+            int size = postingSizes[trigram];
+            if (list == null) {
+                list = postings[trigram] = new int[4];
+            } else if (size == list.length) {
+                list = postings[trigram] = Arrays.copyOf(list, size * 2);
+            }
+            int position = size == 0 || list[size - 1] < ordinal ? size : -Arrays.binarySearch(list, 0, size, ordinal) - 1;
+            System.arraycopy(list, position, list, position + 1, size - position);
+            list[position] = ordinal;
+            postingSizes[trigram] = size + 1;
+        }
+
+        private void removePosting(int trigram, int ordinal) {
+            int[] list = postings[trigram];
+            int size = postingSizes[trigram];
+            int position = Arrays.binarySearch(list, 0, size, ordinal);
+            if (position >= 0) {
+                System.arraycopy(list, position + 1, list, position, size - position - 1);
+                postingSizes[trigram] = size - 1;
+            }
+        }
+
+        List<Match> search(int[] query, int limit) {
+            // Short queries must match fully, longer ones on at least half of their trigrams
+            int minHits = query.length <= 3 ? query.length : (query.length + 1) / 2;
+
+            // A record with minHits hits is in at least one of the (length - minHits + 1) shortest
+            // lists. When those are small next to the rest, only they are scanned and the longer
+            // ones are probed per candidate; otherwise counting over every list is cheaper
+            Integer[] bySize = new Integer[query.length];
+            for (int i = 0; i < query.length; i++) {
+                bySize[i] = query[i];
+            }
+            Arrays.sort(bySize, (a, b) -> Integer.compare(postingSizes[a], postingSizes[b]));
+            int scanned = query.length - minHits + 1;
+            long shortTotal = 0;
+            long total = 0;
+            for (int i = 0; i < query.length; i++) {
+                total += postingSizes[bySize[i]];
+                if (i < scanned) {
+                    shortTotal += postingSizes[bySize[i]];
+                }
+            }
+            if (shortTotal * (1 + PROBE_COST * (query.length - scanned)) >= total) {
+                scanned = query.length;
+            }
+
+            byte[] hits = borrowHits();
+            try {
+                for (int i = 0; i < scanned; i++) {
+                    int trigram = bySize[i];
+                    int[] list = postings[trigram];
+                    for (int j = 0, size = postingSizes[trigram]; j < size; j++) {
+                        hits[list[j]]++;
+                    }
+                }
+                return rank(hits, bySize, scanned, minHits, limit);
+            } finally {
+                Arrays.fill(hits, 0, nextOrdinal, (byte) 0);
+                hitBuffers.offer(hits);
+            }
+        }
+
+        // Rank key: hits, then shorter text, then older ordinal; the heap keeps the best `limit`
+        private List<Match> rank(byte[] hits, Integer[] bySize, int scanned, int minHits, int limit) {
+            long[] best = new long[limit];
+            int found = 0;
+            int lists = bySize.length;
+            for (int ordinal = 0; ordinal < nextOrdinal; ordinal++) {
+                int count = hits[ordinal];
+                if (count == 0) {
+                    continue;
+                }
+                for (int i = scanned; i < lists && count + lists - i >= minHits; i++) {
+                    int trigram = bySize[i];
+                    if (Arrays.binarySearch(postings[trigram], 0, postingSizes[trigram], ordinal) >= 0) {
+                        count++;
+                    }
+                }
+                // Fewer hits than the worst kept match can never enter the heap
+                if (count < minHits || found == limit && count < best[0] >>> 48) {
+                    continue;
+                }
+                long key = ((long) count << 48)
+                        | ((long) (0xFFFF - Math.min(texts[ordinal].length, 0xFFFF)) << 32)
+                        | (0xFFFFFFFFL - ordinal);
+                if (found < limit) {
+                    best[found++] = key;
+                    if (found == limit) {
+                        for (int i = limit / 2 - 1; i >= 0; i--) {
+                            siftDown(best, i, limit);
+                        }
+                    }
+                } else if (key > best[0]) {
+                    best[0] = key;
+                    siftDown(best, 0, limit);
+                }
+            }
+            long[] ranked = Arrays.copyOf(best, found);
+            Arrays.sort(ranked);
+            Match[] matches = new Match[found];
+            for (int i = 0; i < found; i++) {
+                long key = ranked[found - 1 - i];
+                int ordinal = (int) (0xFFFFFFFFL - (key & 0xFFFFFFFFL));
+                matches[i] = new Match(ids[ordinal], (double) (key >>> 48) / lists);
+            }
+            return List.of(matches);
+        }
+
+        // Min-heap over a primitive array, so replacing the worst kept key is one sift and no boxing
+        private static void siftDown(long[] heap, int index, int size) {
+            long key = heap[index];
+            int child;
+            while ((child = 2 * index + 1) < size) {
+                if (child + 1 < size && heap[child + 1] < heap[child]) {
+                    child++;
+                }
+                if (key <= heap[child]) {
+                    break;
+                }
+                heap[index] = heap[child];
+                index = child;
+            }
+            heap[index] = key;
+        }
+    }
+}
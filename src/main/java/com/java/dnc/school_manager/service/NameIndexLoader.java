@@ -0,0 +1,61 @@
+package com.java.dnc.school_manager.service;
+
+import com.java.dnc.school_manager.dto.PersonName;
+import com.java.dnc.school_manager.repository.StudentRepository;
+import com.java.dnc.school_manager.repository.TeacherRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Fills the name indexes by streaming id, name and e-mail of every row once the application is up.
+ * After that the services keep them current on every write.
+ */
+@Component
+public class NameIndexLoader {
+
+    private static final Logger log = LoggerFactory.getLogger(NameIndexLoader.class);
+
+    private final StudentRepository studentRepository;
+    private final TeacherRepository teacherRepository;
+    private final NameIndex studentNameIndex;
+    private final NameIndex teacherNameIndex;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public NameIndexLoader(StudentRepository studentRepository, TeacherRepository teacherRepository,
+                           @Qualifier("studentNameIndex") NameIndex studentNameIndex,
+                           @Qualifier("teacherNameIndex") NameIndex teacherNameIndex,
+                           PlatformTransactionManager transactionManager) {
+        this.studentRepository = studentRepository;
+        this.teacherRepository = teacherRepository;
+        this.studentNameIndex = studentNameIndex;
+        this.teacherNameIndex = teacherNameIndex;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadAll() {
+        rebuild("students", studentNameIndex, studentRepository::streamNames);
+        rebuild("teachers", teacherNameIndex, teacherRepository::streamNames);
+    }
+
+    private void rebuild(String table, NameIndex index, Supplier<Stream<PersonName>> names) {
+        long start = System.nanoTime();
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<PersonName> stream = names.get()) {
+                index.rebuild(sink -> stream.forEach(sink));
+            }
+        });
+        log.info("Name index for {} rebuilt with {} records in {} ms", table, index.size(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+}
@@ -0,0 +1,94 @@
+package com.java.dnc.school_manager.service;
+
+import com.java.dnc.school_manager.dto.CursorPageResponse;
+import com.java.dnc.school_manager.model.Person;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Page/sort parsing and keyset cursor encoding shared by the list endpoints.
+ * Invalid input is reported with {@link IllegalArgumentException}.
+ */
+public final class Pagination {
+
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 1000;
+    public static final int DEFAULT_SUGGESTIONS = 10;
+    public static final int MAX_SUGGESTIONS = 50;
+
+    private Pagination() {
+    }
+
+    // sort is "field" or "field,asc|desc"; id is always added last so pages are stable
+    public static Pageable pageable(Integer page, Integer size, String sort, Set<String> sortableFields) {
+        int pageNumber = page == null ? 0 : page;
+        if (pageNumber < 0) {
+            throw new IllegalArgumentException("page must not be negative");
+        }
+        Sort order = Sort.by("id");
+        if (sort != null && !sort.isBlank()) {
+            String[] parts = sort.split(",");
+            String field = parts[0].trim();
+            if (!sortableFields.contains(field)) {
+                throw new IllegalArgumentException("Cannot sort by '" + field + "', use one of " + sortableFields);
+            }
+            Sort.Direction direction = parts.length > 1
+                    ? Sort.Direction.fromOptionalString(parts[1].trim())
+                    .orElseThrow(() -> new IllegalArgumentException("Invalid sort direction: " + parts[1]))
+                    : Sort.Direction.ASC;
+            order = field.equals("id") ? Sort.by(direction, "id") : Sort.by(direction, field).and(order);
+        }
+        return PageRequest.of(pageNumber, size(size), order);
+    }
+
+    public static int size(Integer size) {
+        if (size == null) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        return size;
+    }
+
+    public static int suggestionLimit(Integer limit) {
+        if (limit == null) {
+            return DEFAULT_SUGGESTIONS;
+        }
+        if (limit < 1 || limit > MAX_SUGGESTIONS) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_SUGGESTIONS);
+        }
+        return limit;
+    }
+
+    // Builds a keyset page from up to size + 1 rows ordered by id
+    public static <T extends Person> CursorPageResponse<T> cursorPage(List<T> rows, int size) {
+        if (rows.size() <= size) {
+            return new CursorPageResponse<>(rows, rows.size(), null);
+        }
+        List<T> content = rows.subList(0, size);
+        return new CursorPageResponse<>(content, size, encodeCursor(content.get(size - 1).getId()));
+    }
+
+    public static String encodeCursor(long lastId) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(Long.toString(lastId).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    // An empty cursor starts from the beginning
+    public static long decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0L;
+        }
+        try {
+            return Long.parseLong(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII));
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+}
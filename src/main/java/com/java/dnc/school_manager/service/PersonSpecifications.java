@@ -0,0 +1,64 @@
+package com.java.dnc.school_manager.service;
+
+import com.java.dnc.school_manager.model.Person;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDate;
+import java.util.Locale;
+
+/**
+ * Filters shared by the search endpoints. Each factory returns {@code null} when its value is
+ * absent, so {@link Specification#allOf} only adds the conditions the client asked for.
+ * Every condition is an equality or a range on an indexed column (see the V2 migration).
+ * Invalid input is reported with {@link IllegalArgumentException}.
+ */
+public final class PersonSpecifications {
+
+    private PersonSpecifications() {
+    }
+
+    public static <T extends Person> Specification<T> city(String city) {
+        return addressEquals("city", city);
+    }
+
+    public static <T extends Person> Specification<T> uf(String uf) {
+        return addressEquals("uf", uf == null ? null : uf.toUpperCase(Locale.ROOT));
+    }
+
+    public static <T extends Person> Specification<T> neighborhood(String neighborhood) {
+        return addressEquals("neighborhood", neighborhood);
+    }
+
+    public static <T> Specification<T> equalTo(String field, String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        return (root, query, cb) -> cb.equal(root.get(field), value.trim());
+    }
+
+    // Inclusive on both ends; either end may be open
+    public static <T> Specification<T> between(String field, LocalDate from, LocalDate to) {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException(field + " range is empty: " + from + " is after " + to);
+        }
+        if (from == null && to == null) {
+            return null;
+        }
+        return (root, query, cb) -> {
+            if (from == null) {
+                return cb.lessThanOrEqualTo(root.get(field), to);
+            }
+            if (to == null) {
+                return cb.greaterThanOrEqualTo(root.get(field), from);
+            }
+            return cb.between(root.get(field), from, to);
+        };
+    }
+
+    private static <T extends Person> Specification<T> addressEquals(String field, String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        return (root, query, cb) -> cb.equal(root.get("address").get(field), value.trim());
+    }
+}
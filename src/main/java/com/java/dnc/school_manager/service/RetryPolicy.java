@@ -0,0 +1,55 @@
+package com.java.dnc.school_manager.service;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Bounded retries with exponential backoff and full jitter, limited by a retry budget.
+ * <p>
+ * Every first attempt deposits {@code budgetRatio} tokens (up to {@code maxTokens}) and every retry
+ * spends one, so during an outage retries add at most that fraction of extra load upstream.
+ */
+public class RetryPolicy {
+
+    private final int maxAttempts;
+    private final long baseBackoffNanos;
+    private final long maxBackoffNanos;
+    private final double budgetRatio;
+    private final double maxTokens;
+    private double tokens;
+
+    public RetryPolicy(int maxAttempts, Duration baseBackoff, Duration maxBackoff, double budgetRatio, double maxTokens) {
+        this.maxAttempts = maxAttempts;
+        this.baseBackoffNanos = baseBackoff.toNanos();
+        this.maxBackoffNanos = maxBackoff.toNanos();
+        this.budgetRatio = budgetRatio;
+        this.maxTokens = maxTokens;
+        this.tokens = maxTokens;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public synchronized void recordRequest() {
+        tokens = Math.min(maxTokens, tokens + budgetRatio);
+    }
+
+    // attempt is the number of attempts already made
+    public synchronized boolean tryAcquireRetry(int attempt) {
+        if (attempt >= maxAttempts || tokens < 1) {
+            return false;
+        }
+        tokens -= 1;
+        return true;
+    }
+
+    public Duration backoff(int attempt) {
+        long ceiling = Math.min(maxBackoffNanos, baseBackoffNanos << Math.min(attempt - 1, 20));
+        return Duration.ofNanos(ThreadLocalRandom.current().nextLong(ceiling + 1));
+    }
+
+    public synchronized double getTokens() {
+        return tokens;
+    }
+}
@@ -1,29 +1,94 @@
 package com.java.dnc.school_manager.service;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.java.dnc.school_manager.dto.BulkImportResult;
+import com.java.dnc.school_manager.dto.ChangeEvent;
+import com.java.dnc.school_manager.dto.CursorPageResponse;
+import com.java.dnc.school_manager.dto.LookupResult;
+import com.java.dnc.school_manager.dto.PageResponse;
 import com.java.dnc.school_manager.dto.StudentDTO;
+import com.java.dnc.school_manager.dto.StudentSearch;
 import com.java.dnc.school_manager.dto.ViaCepResponse;
+import com.java.dnc.school_manager.exception.CepServiceUnavailableException;
 import com.java.dnc.school_manager.exception.DuplicateCpfException;
 import com.java.dnc.school_manager.exception.InvalidCepException;
+import com.java.dnc.school_manager.exception.PreconditionFailedException;
 import com.java.dnc.school_manager.exception.ResourceNotFoundException;
 import com.java.dnc.school_manager.model.Address;
+import com.java.dnc.school_manager.model.AddressStatus;
 import com.java.dnc.school_manager.model.Student;
 import com.java.dnc.school_manager.repository.StudentRepository;
+import com.java.dnc.school_manager.util.CepUtils;
+import com.java.dnc.school_manager.util.CpfUtils;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validator;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
+@Timed("school.service")
 public class StudentService {
 
+    private static final Set<String> SORTABLE_FIELDS = Set.of("id", "name", "cpf", "email", "registration", "registrationDate");
+
     @Autowired
     private final StudentRepository studentRepository;
     @Autowired
     private final ViaCepService viaCepService;
+    @Autowired
+    private final Validator validator;
+    @Autowired
+    private final ObjectMapper objectMapper;
+    @Autowired
+    private final EntityManager entityManager;
+    @Autowired
+    private final CpfBloomFilter studentCpfFilter;
+    @Autowired
+    private final NameIndex studentNameIndex;
+    @Autowired
+    private final ChangeFeed studentChangeFeed;
+
+    // When enabled, create and bulkCreate leave the CEP lookup to AddressEnrichmentService
+    @Value("${enrichment.async:false}")
+    private boolean asyncEnrichment;
 
-    public StudentService(StudentRepository studentRepository, ViaCepService viaCepService) {
+    public StudentService(StudentRepository studentRepository, ViaCepService viaCepService, Validator validator,
+                          ObjectMapper objectMapper, EntityManager entityManager,
+                          @Qualifier("studentCpfFilter") CpfBloomFilter studentCpfFilter,
+                          @Qualifier("studentNameIndex") NameIndex studentNameIndex,
+                          @Qualifier("studentChangeFeed") ChangeFeed studentChangeFeed) {
         this.studentRepository = studentRepository;
         this.viaCepService = viaCepService;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.entityManager = entityManager;
+        this.studentCpfFilter = studentCpfFilter;
+        this.studentNameIndex = studentNameIndex;
+        this.studentChangeFeed = studentChangeFeed;
     }
 
     // List all students
@@ -31,6 +96,74 @@ public class StudentService {
         return studentRepository.findAll();
     }
 
+    // List one page, sorted by the given field
+    public PageResponse<Student> findPage(Integer page, Integer size, String sort) {
+        return PageResponse.of(studentRepository.findAll(Pagination.pageable(page, size, sort, SORTABLE_FIELDS)));
+    }
+
+    // One page of the students matching every given filter
+    public PageResponse<Student> search(StudentSearch filter, Integer page, Integer size, String sort) {
+        return PageResponse.of(studentRepository.findAll(searchSpec(filter), Pagination.pageable(page, size, sort, SORTABLE_FIELDS)));
+    }
+
+    // Sparse fieldsets (fields=id,name,address.city): the same reads, selecting only those columns
+    public List<Map<String, Object>> findAll(String fields) {
+        return projection().list(fields, null, Sort.by("id"), 0, -1);
+    }
+
+    public PageResponse<Map<String, Object>> findPage(Integer page, Integer size, String sort, String fields) {
+        return projection().page(fields, null, Pagination.pageable(page, size, sort, SORTABLE_FIELDS));
+    }
+
+    public CursorPageResponse<Map<String, Object>> findAfter(String cursor, Integer size, String fields) {
+        return projection().after(fields, Pagination.decodeCursor(cursor), Pagination.size(size));
+    }
+
+    public PageResponse<Map<String, Object>> search(StudentSearch filter, Integer page, Integer size, String sort, String fields) {
+        return projection().page(fields, searchSpec(filter), Pagination.pageable(page, size, sort, SORTABLE_FIELDS));
+    }
+
+    public Map<String, Object> findById(Long id, String fields) {
+        return projection().byId(fields, id)
+                .orElseThrow(() -> new ResourceNotFoundException("Student not found with id: " + id));
+    }
+
+    // List the students after the cursor, ordered by id (keyset pagination)
+    public CursorPageResponse<Student> findAfter(String cursor, Integer size) {
+        int pageSize = Pagination.size(size);
+        List<Student> rows = studentRepository.findByIdGreaterThanOrderByIdAsc(
+                Pagination.decodeCursor(cursor), Limit.of(pageSize + 1));
+        return Pagination.cursorPage(rows, pageSize);
+    }
+
+    // Multi-get by ids and/or CPFs; keys that match nothing are reported instead of failing
+    public LookupResult<Student> lookup(Collection<Long> ids, Collection<String> cpfs) {
+        return new BatchLookup<Student>(studentRepository::findAllById, studentCpfFilter::mightContain,
+                studentRepository::findByCpfIn).run(ids, cpfs);
+    }
+
+    // Typeahead by name or e-mail, best match first; ignores accents and tolerates typos
+    public List<Student> suggest(String query, Integer limit) {
+        List<Long> ranked = studentNameIndex.search(query, Pagination.suggestionLimit(limit)).stream()
+                .map(NameIndex.Match::id)
+                .toList();
+        if (ranked.isEmpty()) {
+            return List.of();
+        }
+        // One query for every match, then back into the index's rank order
+        Map<Long, Student> byId = studentRepository.findAllById(ranked).stream()
+                .collect(Collectors.toMap(Student::getId, Function.identity()));
+        return ranked.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    // SSE stream of creates, updates and deletes, resumed after lastEventId when given
+    public SseEmitter changes(Long lastEventId) {
+        return studentChangeFeed.subscribe(lastEventId);
+    }
+
     // Find by id
     public Student findById(Long id) {
         return studentRepository.findById(id)
@@ -39,54 +172,183 @@ public class StudentService {
 
     // Create Student
     public Student create(StudentDTO dto) {
-        // CPF verification
-        if (studentRepository.existsByCpf(dto.getCpf())) {
-            throw new DuplicateCpfException("CPF already registered: " + dto.getCpf());
-        }
-        // Search CEP with ViaCEP
-        ViaCepResponse viaCep = viaCepService.fetchAddress(dto.getCep());
-        if (viaCep.getError() != null) {
-            throw new InvalidCepException("Invalid CEP: " + dto.getCep());
+        // Local checks first, so malformed input never costs a query or a ViaCEP call
+        String cpf = CpfUtils.requireValid(dto.getCpf());
+        requireValidCep(dto);
+        // CPF verification; the filter rules out most new CPFs without a query
+        if (cpfExists(cpf)) {
+            throw new DuplicateCpfException("CPF already registered: " + cpf);
         }
+        // Search CEP with ViaCEP, or save as pending for the enrichment worker
+        ViaCepResponse viaCep = asyncEnrichment ? null : resolveAddress(dto);
         // Converts DTO to Entity
         Student student = new Student();
         mapToEntity(dto, student, viaCep);
-        return studentRepository.save(student);
+        Student saved = studentRepository.save(student);
+        studentCpfFilter.put(saved.getCpf());
+        studentNameIndex.put(saved.getId(), saved.getName(), saved.getEmail());
+        studentChangeFeed.publish(ChangeEvent.Action.CREATED, saved);
+        return saved;
+    }
+
+    // Create many Students, reporting the outcome of each record
+    public BulkImportResult bulkCreate(Iterator<StudentDTO> records) {
+        BulkImporter<StudentDTO, Student> importer = new BulkImporter<>(validator, asyncEnrichment ? null : viaCepService,
+                dto -> CpfUtils.normalizeOrKeep(dto.getCpf()), StudentDTO::getCep, StudentService::hasFallbackAddress,
+                this::findExistingCpfs,
+                (dto, viaCep) -> {
+                    Student student = new Student();
+                    mapToEntity(dto, student, viaCep);
+                    return student;
+                },
+                students -> {
+                    List<Student> saved = studentRepository.saveAll(students);
+                    saved.forEach(student -> {
+                        studentCpfFilter.put(student.getCpf());
+                        studentNameIndex.put(student.getId(), student.getName(), student.getEmail());
+                        studentChangeFeed.publish(ChangeEvent.Action.CREATED, student);
+                    });
+                    return saved;
+                });
+        return importer.run(records);
+    }
+
+    // Stream every Student as NDJSON straight from a database cursor, detaching rows once written
+    @Transactional(readOnly = true)
+    public long exportNdjson(OutputStream out) throws IOException {
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        long count = 0;
+        try (Stream<Student> students = studentRepository.streamAll();
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(out)
+                     .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                     .setRootValueSeparator(null)) {
+            Iterator<Student> iterator = students.iterator();
+            while (iterator.hasNext()) {
+                Student student = iterator.next();
+                writer.writeValue(generator, student);
+                generator.writeRaw('\n');
+                entityManager.detach(student);
+                count++;
+            }
+        }
+        return count;
     }
 
     // Update Student
     public Student update(Long id, StudentDTO dto) {
+        return update(id, dto, null);
+    }
+
+    // Update Student only if it is still at expectedVersion (from If-Match); null skips the check
+    public Student update(Long id, StudentDTO dto, Long expectedVersion) {
+        // Local checks first, so malformed input never costs a query or a ViaCEP call
+        String cpf = CpfUtils.requireValid(dto.getCpf());
+        requireValidCep(dto);
         Student student = findById(id);
+        if (expectedVersion != null && !expectedVersion.equals(student.getVersion())) {
+            throw new PreconditionFailedException("Student " + id + " is at version " + student.getVersion());
+        }
 
         // Check if new CPF already exists in another record
-        if (!student.getCpf().equals(dto.getCpf()) && studentRepository.existsByCpf(dto.getCpf())) {
-            throw new DuplicateCpfException("CPF already registered: " + dto.getCpf());
+        String previousCpf = student.getCpf();
+        boolean cpfChanged = !previousCpf.equals(cpf);
+        if (cpfChanged && cpfExists(cpf)) {
+            throw new DuplicateCpfException("CPF already registered: " + cpf);
         }
 
-        ViaCepResponse viaCep = viaCepService.fetchAddress(dto.getCep());
-        if (viaCep.getError() != null) {
-            throw new InvalidCepException("Invalid CEP: " + dto.getCep());
-        }
+        ViaCepResponse viaCep = resolveAddress(dto);
 
         mapToEntity(dto, student, viaCep);
-        return studentRepository.save(student);
+        Student saved;
+        try {
+            saved = studentRepository.save(student);
+        } catch (ObjectOptimisticLockingFailureException ex) {
+            // Changed by another request between the read and the write
+            if (expectedVersion != null) {
+                throw new PreconditionFailedException("Student " + id + " was modified concurrently");
+            }
+            throw ex;
+        }
+        if (cpfChanged) {
+            studentCpfFilter.put(saved.getCpf());
+            studentCpfFilter.remove(previousCpf);
+        }
+        studentNameIndex.put(saved.getId(), saved.getName(), saved.getEmail());
+        studentChangeFeed.publish(ChangeEvent.Action.UPDATED, saved);
+        return saved;
     }
 
     // Delete a Student
     public void delete(Long id) {
         Student student = findById(id);
         studentRepository.delete(student);
+        studentCpfFilter.remove(student.getCpf());
+        studentNameIndex.remove(student.getId());
+        studentChangeFeed.publish(ChangeEvent.Action.DELETED, student);
+    }
+
+    private Specification<Student> searchSpec(StudentSearch filter) {
+        return Specification.allOf(
+                PersonSpecifications.city(filter.getCity()),
+                PersonSpecifications.uf(filter.getUf()),
+                PersonSpecifications.neighborhood(filter.getNeighborhood()),
+                PersonSpecifications.between("registrationDate", filter.getRegistrationFrom(), filter.getRegistrationTo()));
     }
 
-    private void mapToEntity(StudentDTO dto, Student student, ViaCepResponse viaCep) {
+    private FieldProjection<Student> projection() {
+        return new FieldProjection<>(entityManager, Student.class);
+    }
+
+    private boolean cpfExists(String cpf) {
+        return studentCpfFilter.mightContain(cpf) && studentRepository.existsByCpf(cpf);
+    }
+
+    // Only CPFs the filter cannot rule out go to the database
+    private Collection<String> findExistingCpfs(Collection<String> cpfs) {
+        Set<String> candidates = cpfs.stream().filter(studentCpfFilter::mightContain).collect(Collectors.toSet());
+        return candidates.isEmpty() ? List.of() : studentRepository.findExistingCpfs(candidates);
+    }
+
+    private static void requireValidCep(StudentDTO dto) {
+        if (!CepUtils.isValid(dto.getCep())) {
+            throw new InvalidCepException("Invalid CEP: " + dto.getCep());
+        }
+    }
+
+    // Returns null when ViaCEP is unavailable but the client sent the address itself (degraded mode)
+    private ViaCepResponse resolveAddress(StudentDTO dto) {
+        try {
+            ViaCepResponse viaCep = viaCepService.fetchAddress(dto.getCep());
+            if (viaCep.getError() != null) {
+                throw new InvalidCepException("Invalid CEP: " + dto.getCep());
+            }
+            return viaCep;
+        } catch (CepServiceUnavailableException ex) {
+            if (hasFallbackAddress(dto)) {
+                return null;
+            }
+            throw ex;
+        }
+    }
+
+    private static boolean hasFallbackAddress(StudentDTO dto) {
+        return dto.getStreet() != null && dto.getCity() != null && dto.getUf() != null;
+    }
+
+    // viaCep is null when the address was not checked yet; it is then flagged for later enrichment
+    void mapToEntity(StudentDTO dto, Student student, ViaCepResponse viaCep) {
         student.setName(dto.getName());
-        student.setCpf(dto.getCpf());
+        student.setCpf(CpfUtils.normalize(dto.getCpf()));
         student.setEmail(dto.getEmail());
         student.setPhoneNumber(dto.getPhoneNumber());
         student.setRegistration(dto.getRegistration());
         student.setRegistrationDate(dto.getRegistrationDate());
 
         Address address = new Address();
+        address.setAddressStatus(viaCep != null ? AddressStatus.RESOLVED : AddressStatus.PENDING);
+        if (viaCep == null) {
+            viaCep = new ViaCepResponse();
+        }
         address.setCep(dto.getCep());
         address.setNumber(dto.getNumber());
         address.setComplement(dto.getComplement());
@@ -1,33 +1,165 @@
 package com.java.dnc.school_manager.service;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.java.dnc.school_manager.dto.BulkImportResult;
+import com.java.dnc.school_manager.dto.ChangeEvent;
+import com.java.dnc.school_manager.dto.CursorPageResponse;
+import com.java.dnc.school_manager.dto.LookupResult;
+import com.java.dnc.school_manager.dto.PageResponse;
 import com.java.dnc.school_manager.dto.TeacherDTO;
+import com.java.dnc.school_manager.dto.TeacherSearch;
 import com.java.dnc.school_manager.dto.ViaCepResponse;
+import com.java.dnc.school_manager.exception.CepServiceUnavailableException;
 import com.java.dnc.school_manager.exception.DuplicateCpfException;
 import com.java.dnc.school_manager.exception.InvalidCepException;
+import com.java.dnc.school_manager.exception.PreconditionFailedException;
 import com.java.dnc.school_manager.exception.ResourceNotFoundException;
 import com.java.dnc.school_manager.model.Address;
+import com.java.dnc.school_manager.model.AddressStatus;
 import com.java.dnc.school_manager.model.Student;
 import com.java.dnc.school_manager.model.Teacher;
 import com.java.dnc.school_manager.repository.TeacherRepository;
+import com.java.dnc.school_manager.util.CepUtils;
+import com.java.dnc.school_manager.util.CpfUtils;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validator;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
+@Timed("school.service")
 public class TeacherService {
 
+    private static final Set<String> SORTABLE_FIELDS = Set.of("id", "name", "cpf", "email", "subject", "hiringDate");
+
     @Autowired
     private TeacherRepository teacherRepository;
 
     @Autowired
     private ViaCepService viaCepService;
 
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    @Qualifier("teacherCpfFilter")
+    private CpfBloomFilter teacherCpfFilter;
+
+    @Autowired
+    @Qualifier("teacherNameIndex")
+    private NameIndex teacherNameIndex;
+
+    @Autowired
+    @Qualifier("teacherChangeFeed")
+    private ChangeFeed teacherChangeFeed;
+
+    //When enabled, create and bulkCreate leave the CEP lookup to AddressEnrichmentService
+    @Value("${enrichment.async:false}")
+    private boolean asyncEnrichment;
+
     //List all teachers
     public List<Teacher> findAll(){
         return teacherRepository.findAll();
     }
 
+    //List one page, sorted by the given field
+    public PageResponse<Teacher> findPage(Integer page, Integer size, String sort){
+        return PageResponse.of(teacherRepository.findAll(Pagination.pageable(page, size, sort, SORTABLE_FIELDS)));
+    }
+
+    //One page of the teachers matching every given filter
+    public PageResponse<Teacher> search(TeacherSearch filter, Integer page, Integer size, String sort){
+        return PageResponse.of(teacherRepository.findAll(searchSpec(filter), Pagination.pageable(page, size, sort, SORTABLE_FIELDS)));
+    }
+
+    //Sparse fieldsets (fields=id,name,address.city): the same reads, selecting only those columns
+    public List<Map<String, Object>> findAll(String fields){
+        return projection().list(fields, null, Sort.by("id"), 0, -1);
+    }
+
+    public PageResponse<Map<String, Object>> findPage(Integer page, Integer size, String sort, String fields){
+        return projection().page(fields, null, Pagination.pageable(page, size, sort, SORTABLE_FIELDS));
+    }
+
+    public CursorPageResponse<Map<String, Object>> findAfter(String cursor, Integer size, String fields){
+        return projection().after(fields, Pagination.decodeCursor(cursor), Pagination.size(size));
+    }
+
+    public PageResponse<Map<String, Object>> search(TeacherSearch filter, Integer page, Integer size, String sort, String fields){
+        return projection().page(fields, searchSpec(filter), Pagination.pageable(page, size, sort, SORTABLE_FIELDS));
+    }
+
+    public Map<String, Object> findById(Long id, String fields){
+        return projection().byId(fields, id)
+                .orElseThrow(() -> new ResourceNotFoundException("Teacher not found with id: " + id));
+    }
+
+    //List the teachers after the cursor, ordered by id (keyset pagination)
+    public CursorPageResponse<Teacher> findAfter(String cursor, Integer size){
+        int pageSize = Pagination.size(size);
+        List<Teacher> rows = teacherRepository.findByIdGreaterThanOrderByIdAsc(
+                Pagination.decodeCursor(cursor), Limit.of(pageSize + 1));
+        return Pagination.cursorPage(rows, pageSize);
+    }
+
+    //Multi-get by ids and/or CPFs; keys that match nothing are reported instead of failing
+    public LookupResult<Teacher> lookup(Collection<Long> ids, Collection<String> cpfs){
+        return new BatchLookup<Teacher>(teacherRepository::findAllById, teacherCpfFilter::mightContain,
+                teacherRepository::findByCpfIn).run(ids, cpfs);
+    }
+
+    //Typeahead by name or e-mail, best match first; ignores accents and tolerates typos
+    public List<Teacher> suggest(String query, Integer limit){
+        List<Long> ranked = teacherNameIndex.search(query, Pagination.suggestionLimit(limit)).stream()
+                .map(NameIndex.Match::id)
+                .toList();
+        if(ranked.isEmpty()){
+            return List.of();
+        }
+        //One query for every match, then back into the index's rank order
+        Map<Long, Teacher> byId = teacherRepository.findAllById(ranked).stream()
+                .collect(Collectors.toMap(Teacher::getId, Function.identity()));
+        return ranked.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    //SSE stream of creates, updates and deletes, resumed after lastEventId when given
+    public SseEmitter changes(Long lastEventId){
+        return teacherChangeFeed.subscribe(lastEventId);
+    }
+
     //Find by id
     public Teacher findById(Long id){
         return teacherRepository.findById(id)
@@ -36,56 +168,186 @@ public class TeacherService {
 
     //Create Teacher
     public Teacher create(TeacherDTO dto){
-        //CPF verification
-        if(teacherRepository.existsByCpf(dto.getCpf())){
-            throw new DuplicateCpfException("CPF already registered: " + dto.getCpf());
+        //Local checks first, so malformed input never costs a query or a ViaCEP call
+        String cpf = CpfUtils.requireValid(dto.getCpf());
+        requireValidCep(dto);
+        //CPF verification; the filter rules out most new CPFs without a query
+        if(cpfExists(cpf)){
+            throw new DuplicateCpfException("CPF already registered: " + cpf);
         }
 
-        //Search CEP with ViaCEP
-        ViaCepResponse viaCep = viaCepService.fetchAddress(dto.getCep());
-        if(viaCep.getError() != null){
-            throw new InvalidCepException("Invalid CEP: " + dto.getCep());
-        }
+        //Search CEP with ViaCEP, or save as pending for the enrichment worker
+        ViaCepResponse viaCep = asyncEnrichment ? null : resolveAddress(dto);
 
         //Converts DTO to Entity
         Teacher teacher = new Teacher();
         mapToEntity(dto, teacher, viaCep);
-        return teacherRepository.save(teacher);
+        Teacher saved = teacherRepository.save(teacher);
+        teacherCpfFilter.put(saved.getCpf());
+        teacherNameIndex.put(saved.getId(), saved.getName(), saved.getEmail());
+        teacherChangeFeed.publish(ChangeEvent.Action.CREATED, saved);
+        return saved;
+    }
+
+    //Create many teachers, reporting the outcome of each record
+    public BulkImportResult bulkCreate(Iterator<TeacherDTO> records){
+        BulkImporter<TeacherDTO, Teacher> importer = new BulkImporter<>(validator, asyncEnrichment ? null : viaCepService,
+                dto -> CpfUtils.normalizeOrKeep(dto.getCpf()), TeacherDTO::getCep, TeacherService::hasFallbackAddress,
+                this::findExistingCpfs,
+                (dto, viaCep) -> {
+                    Teacher teacher = new Teacher();
+                    mapToEntity(dto, teacher, viaCep);
+                    return teacher;
+                },
+                teachers -> {
+                    List<Teacher> saved = teacherRepository.saveAll(teachers);
+                    saved.forEach(teacher -> {
+                        teacherCpfFilter.put(teacher.getCpf());
+                        teacherNameIndex.put(teacher.getId(), teacher.getName(), teacher.getEmail());
+                        teacherChangeFeed.publish(ChangeEvent.Action.CREATED, teacher);
+                    });
+                    return saved;
+                });
+        return importer.run(records);
+    }
+
+    //Stream every Teacher as NDJSON straight from a database cursor, detaching rows once written
+    @Transactional(readOnly = true)
+    public long exportNdjson(OutputStream out) throws IOException {
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        long count = 0;
+        try (Stream<Teacher> teachers = teacherRepository.streamAll();
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(out)
+                     .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                     .setRootValueSeparator(null)) {
+            Iterator<Teacher> iterator = teachers.iterator();
+            while (iterator.hasNext()) {
+                Teacher teacher = iterator.next();
+                writer.writeValue(generator, teacher);
+                generator.writeRaw('\n');
+                entityManager.detach(teacher);
+                count++;
+            }
+        }
+        return count;
     }
 
         //Update teacher
         public Teacher update(Long id, TeacherDTO dto){
+            return update(id, dto, null);
+        }
+
+        //Update teacher only if it is still at expectedVersion (from If-Match); null skips the check
+        public Teacher update(Long id, TeacherDTO dto, Long expectedVersion){
+            //Local checks first, so malformed input never costs a query or a ViaCEP call
+            String cpf = CpfUtils.requireValid(dto.getCpf());
+            requireValidCep(dto);
             Teacher teacher = findById(id);
+            if(expectedVersion != null && !expectedVersion.equals(teacher.getVersion())){
+                throw new PreconditionFailedException("Teacher " + id + " is at version " + teacher.getVersion());
+            }
 
             // Check if new CPF already exists in another record
-            if(!teacher.getCpf().equals(dto.getCpf()) && teacherRepository.existsByCpf(dto.getCpf())){
-                throw new DuplicateCpfException("CPF already registered: " + dto.getCpf());
+            String previousCpf = teacher.getCpf();
+            boolean cpfChanged = !previousCpf.equals(cpf);
+            if(cpfChanged && cpfExists(cpf)){
+                throw new DuplicateCpfException("CPF already registered: " + cpf);
             }
 
-            ViaCepResponse viaCep = viaCepService.fetchAddress(dto.getCep());
-            if(viaCep.getError() != null){
-                throw new InvalidCepException("Invalid CEP: " + dto.getCep());
-            }
+            ViaCepResponse viaCep = resolveAddress(dto);
 
             mapToEntity(dto, teacher, viaCep);
-            return teacherRepository.save(teacher);
+            Teacher saved;
+            try {
+                saved = teacherRepository.save(teacher);
+            } catch (ObjectOptimisticLockingFailureException ex){
+                //Changed by another request between the read and the write
+                if(expectedVersion != null){
+                    throw new PreconditionFailedException("Teacher " + id + " was modified concurrently");
+                }
+                throw ex;
+            }
+            if(cpfChanged){
+                teacherCpfFilter.put(saved.getCpf());
+                teacherCpfFilter.remove(previousCpf);
+            }
+            teacherNameIndex.put(saved.getId(), saved.getName(), saved.getEmail());
+            teacherChangeFeed.publish(ChangeEvent.Action.UPDATED, saved);
+            return saved;
         }
 
         //Delete teacher
         public void delete(Long id){
             Teacher teacher = findById(id);
             teacherRepository.delete(teacher);
+            teacherCpfFilter.remove(teacher.getCpf());
+            teacherNameIndex.remove(teacher.getId());
+            teacherChangeFeed.publish(ChangeEvent.Action.DELETED, teacher);
         }
 
+    private Specification<Teacher> searchSpec(TeacherSearch filter){
+        return Specification.allOf(
+                PersonSpecifications.city(filter.getCity()),
+                PersonSpecifications.uf(filter.getUf()),
+                PersonSpecifications.neighborhood(filter.getNeighborhood()),
+                PersonSpecifications.equalTo("subject", filter.getSubject()),
+                PersonSpecifications.between("hiringDate", filter.getHiringFrom(), filter.getHiringTo()));
+    }
+
+    private FieldProjection<Teacher> projection(){
+        return new FieldProjection<>(entityManager, Teacher.class);
+    }
+
+    private boolean cpfExists(String cpf){
+        return teacherCpfFilter.mightContain(cpf) && teacherRepository.existsByCpf(cpf);
+    }
+
+    //Only CPFs the filter cannot rule out go to the database
+    private Collection<String> findExistingCpfs(Collection<String> cpfs){
+        Set<String> candidates = cpfs.stream().filter(teacherCpfFilter::mightContain).collect(Collectors.toSet());
+        return candidates.isEmpty() ? List.of() : teacherRepository.findExistingCpfs(candidates);
+    }
+
+    private static void requireValidCep(TeacherDTO dto){
+        if(!CepUtils.isValid(dto.getCep())){
+            throw new InvalidCepException("Invalid CEP: " + dto.getCep());
+        }
+    }
+
+    //Returns null when ViaCEP is unavailable but the client sent the address itself (degraded mode)
+    private ViaCepResponse resolveAddress(TeacherDTO dto){
+        try{
+            ViaCepResponse viaCep = viaCepService.fetchAddress(dto.getCep());
+            if(viaCep.getError() != null){
+                throw new InvalidCepException("Invalid CEP: " + dto.getCep());
+            }
+            return viaCep;
+        } catch (CepServiceUnavailableException ex){
+            if(hasFallbackAddress(dto)){
+                return null;
+            }
+            throw ex;
+        }
+    }
+
+    private static boolean hasFallbackAddress(TeacherDTO dto){
+        return dto.getStreet() != null && dto.getCity() != null && dto.getUf() != null;
+    }
+
+    //viaCep is null when the address was not checked yet; it is then flagged for later enrichment
     private void mapToEntity(TeacherDTO dto, Teacher teacher, ViaCepResponse viaCep) {
         teacher.setName(dto.getName());
-        teacher.setCpf(dto.getCpf());
+        teacher.setCpf(CpfUtils.normalize(dto.getCpf()));
         teacher.setEmail(dto.getEmail());
         teacher.setPhoneNumber(dto.getPhoneNumber());
         teacher.setSubject(dto.getSubject());
         teacher.setHiringDate(dto.getHiringDate());
 
         Address address = new Address();
+        address.setAddressStatus(viaCep != null ? AddressStatus.RESOLVED : AddressStatus.PENDING);
+        if (viaCep == null) {
+            viaCep = new ViaCepResponse();
+        }
         address.setCep(dto.getCep());
         address.setNumber(dto.getNumber());
         address.setComplement(dto.getComplement());
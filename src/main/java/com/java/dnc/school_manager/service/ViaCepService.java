@@ -1,10 +1,42 @@
 package com.java.dnc.school_manager.service;
 
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.java.dnc.school_manager.dto.CepCacheStats;
+import com.java.dnc.school_manager.dto.CepStoreStats;
+import com.java.dnc.school_manager.dto.ViaCepHttpStats;
 import com.java.dnc.school_manager.dto.ViaCepResponse;
+import com.java.dnc.school_manager.exception.CepServiceUnavailableException;
+import com.java.dnc.school_manager.util.CepUtils;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
 @Service
 public class ViaCepService {
 
@@ -12,14 +44,282 @@ public class ViaCepService {
     private String viaCepUrl;
 
     private final RestTemplate restTemplate;
+    private final CepAddressStore cepAddressStore;
+    private final CircuitBreaker circuitBreaker;
+    private final RetryPolicy retryPolicy;
+
+    // Loads run on virtual threads so callers only park on a future, never pin a carrier thread
+    private final ExecutorService loadExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    // CEP -> ViaCEP response, bounded by size (W-TinyLFU) and expiring per entry
+    private final AsyncCache<String, ViaCepResponse> cache;
+
+    // Caps in-flight calls to ViaCEP however many requests are waiting on addresses
+    private final Semaphore remoteCalls;
+    private final Duration acquireTimeout;
+    // Upper bound for a whole lookup, including the wait for a slot and a pooled connection
+    private final Duration totalTimeout;
+
+    // viacep.lookup timers by outcome: cache hit, miss (local index or ViaCEP), invalid CEP or error
+    private final MeterRegistry meterRegistry;
+    private final Timer hitTimer;
+    private final Timer missTimer;
+    private final Timer invalidTimer;
+    private final Timer errorTimer;
 
-    public ViaCepService(RestTemplate restTemplate) {
+    private final LongAdder remoteRequests = new LongAdder();
+    private final LongAdder remoteFailures = new LongAdder();
+    private final LongAdder remoteNanos = new LongAdder();
+    private final AtomicLong maxRemoteNanos = new AtomicLong();
+
+    public ViaCepService(RestTemplate restTemplate,
+                         CepAddressStore cepAddressStore,
+                         CircuitBreaker circuitBreaker,
+                         RetryPolicy retryPolicy,
+                         MeterRegistry meterRegistry,
+                         @Value("${viacep.cache.max-size:10000}") long maxSize,
+                         @Value("${viacep.cache.ttl:24h}") Duration ttl,
+                         @Value("${viacep.cache.negative-ttl:10m}") Duration negativeTtl,
+                         @Value("${viacep.max-concurrent-requests:50}") int maxConcurrentRequests,
+                         @Value("${viacep.acquire-timeout:2s}") Duration acquireTimeout,
+                         @Value("${viacep.http.total-timeout:8s}") Duration totalTimeout) {
         this.restTemplate = restTemplate;
+        this.cepAddressStore = cepAddressStore;
+        this.circuitBreaker = circuitBreaker;
+        this.retryPolicy = retryPolicy;
+        this.remoteCalls = new Semaphore(maxConcurrentRequests);
+        this.acquireTimeout = acquireTimeout;
+        this.totalTimeout = totalTimeout;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new CepExpiry(ttl, negativeTtl))
+                .executor(loadExecutor)
+                .recordStats()
+                .buildAsync();
+        this.meterRegistry = meterRegistry;
+        this.hitTimer = lookupTimer("hit");
+        this.missTimer = lookupTimer("miss");
+        this.invalidTimer = lookupTimer("invalid");
+        this.errorTimer = lookupTimer("error");
+        CaffeineCacheMetrics.monitor(meterRegistry, cache.synchronous(), "viacep");
+        Gauge.builder("viacep.circuit.open", circuitBreaker, breaker -> breaker.getState() == CircuitBreaker.State.OPEN ? 1 : 0)
+                .description("1 while the ViaCEP circuit breaker is open")
+                .register(meterRegistry);
+    }
+
+    private Timer lookupTimer(String outcome) {
+        return Timer.builder("viacep.lookup")
+                .description("CEP lookups through cache, local index and ViaCEP")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
     }
 
+    // Throws CepServiceUnavailableException when ViaCEP cannot answer in time (outage, open circuit, saturation)
     public ViaCepResponse fetchAddress(String cep) {
-        String cleanCep = cep.replaceAll("\\D", "");
-        String url = viaCepUrl + cleanCep + "/json/";
-        return restTemplate.getForObject(url, ViaCepResponse.class);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String cleanCep = CepUtils.normalizeOrNull(cep);
+        if (cleanCep == null) {
+            // Malformed or unassigned: answered locally, without touching the cache or the network
+            sample.stop(invalidTimer);
+            return invalidCep();
+        }
+        Timer timer = errorTimer;
+        try {
+            // The mapping function only runs when nothing is cached or loading for the CEP
+            boolean[] loaded = {false};
+            // Concurrent lookups for the same CEP wait on a single load
+            CompletableFuture<ViaCepResponse> future = cache.get(cleanCep, (key, executor) -> {
+                loaded[0] = true;
+                return CompletableFuture.supplyAsync(() -> load(key), executor);
+            });
+            ViaCepResponse response = await(future, cleanCep);
+            timer = response == null || response.getError() != null ? invalidTimer : loaded[0] ? missTimer : hitTimer;
+            return response;
+        } finally {
+            sample.stop(timer);
+        }
+    }
+
+    private ViaCepResponse await(CompletableFuture<ViaCepResponse> future, String cleanCep) {
+        try {
+            return future.get(totalTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new CepServiceUnavailableException("ViaCEP lookup failed for CEP " + cleanCep, ex.getCause());
+        } catch (TimeoutException ex) {
+            throw new CepServiceUnavailableException("ViaCEP lookup for CEP " + cleanCep + " timed out after " + totalTimeout);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new CepServiceUnavailableException("Interrupted while looking up CEP " + cleanCep);
+        }
+    }
+
+    public CepCacheStats getCacheStats() {
+        CacheStats stats = cache.synchronous().stats();
+        return new CepCacheStats(cache.synchronous().estimatedSize(), stats.hitCount(), stats.missCount(),
+                stats.hitRate(), stats.evictionCount(), stats.averageLoadPenalty() / 1_000_000.0);
+    }
+
+    public ViaCepHttpStats getHttpStats() {
+        long requests = remoteRequests.sum();
+        double averageMillis = requests == 0 ? 0 : remoteNanos.sum() / (double) requests / 1_000_000.0;
+        ViaCepHttpStats stats = new ViaCepHttpStats(requests, remoteFailures.sum(), averageMillis,
+                maxRemoteNanos.get() / 1_000_000.0, remoteCalls.availablePermits());
+        stats.setCircuitState(circuitBreaker.getState().name());
+        stats.setRetryTokens(retryPolicy.getTokens());
+        return stats;
+    }
+
+    public void clearCache() {
+        cache.synchronous().invalidateAll();
+    }
+
+    public CepStoreStats getStoreStats() {
+        return cepAddressStore.getStats();
+    }
+
+    // Local CEP store first, ViaCEP only for CEPs never seen before
+    private ViaCepResponse load(String cleanCep) {
+        ViaCepResponse stored = cepAddressStore.get(cleanCep);
+        if (stored != null) {
+            return stored;
+        }
+        ViaCepResponse response = fetchWithRetry(cleanCep);
+        if (response == null) {
+            // Empty body: no address for the CEP, cached as invalid like a 400
+            return invalidCep();
+        }
+        if (response.getError() == null) {
+            cepAddressStore.put(cleanCep, response);
+        }
+        return response;
+    }
+
+    // Retries transient failures with jittered backoff while the circuit and the retry budget allow it
+    private ViaCepResponse fetchWithRetry(String cleanCep) {
+        retryPolicy.recordRequest();
+        int attempt = 0;
+        while (true) {
+            if (!circuitBreaker.allowRequest()) {
+                throw new CepServiceUnavailableException("ViaCEP circuit is open, CEP " + cleanCep + " not looked up");
+            }
+            attempt++;
+            try {
+                ViaCepResponse response = fetchRemote(cleanCep);
+                circuitBreaker.onSuccess();
+                return response;
+            } catch (HttpClientErrorException ex) {
+                int status = ex.getStatusCode().value();
+                if (status == 400 || status == 404) {
+                    // ViaCEP answers 400 (or 404) for CEPs it rejects: the service is healthy, the CEP is not
+                    circuitBreaker.onSuccess();
+                    return invalidCep();
+                }
+                // 429 and other 4xx say nothing about the CEP, so they must never be cached as invalid
+                circuitBreaker.onFailure();
+                backOff(cleanCep, attempt, ex, retryAfter(ex));
+            } catch (RestClientException ex) {
+                circuitBreaker.onFailure();
+                backOff(cleanCep, attempt, ex, Duration.ZERO);
+            }
+        }
+    }
+
+    // Waits before the next attempt, or gives up when the budget is spent or ViaCEP asks to wait past the lookup timeout
+    private void backOff(String cleanCep, int attempt, RestClientException ex, Duration retryAfter) {
+        if (retryAfter.compareTo(totalTimeout) >= 0 || !retryPolicy.tryAcquireRetry(attempt)) {
+            throw new CepServiceUnavailableException("ViaCEP unavailable for CEP " + cleanCep
+                    + " after " + attempt + " attempt(s)", ex);
+        }
+        Duration backoff = retryPolicy.backoff(attempt);
+        sleep(backoff.compareTo(retryAfter) < 0 ? retryAfter : backoff);
+    }
+
+    // Retry-After as delay-seconds or an HTTP date; zero when absent or unreadable
+    private static Duration retryAfter(HttpClientErrorException ex) {
+        HttpHeaders headers = ex.getResponseHeaders();
+        String value = headers == null ? null : headers.getFirst(HttpHeaders.RETRY_AFTER);
+        if (value == null) {
+            return Duration.ZERO;
+        }
+        try {
+            return Duration.ofSeconds(Math.max(0, Long.parseLong(value.trim())));
+        } catch (NumberFormatException notSeconds) {
+            try {
+                Duration until = Duration.between(Instant.now(), ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME));
+                return until.isNegative() ? Duration.ZERO : until;
+            } catch (DateTimeParseException notDate) {
+                return Duration.ZERO;
+            }
+        }
+    }
+
+    // Same shape as ViaCEP's answer for a CEP that does not exist
+    private static ViaCepResponse invalidCep() {
+        ViaCepResponse invalid = new ViaCepResponse();
+        invalid.setError("true");
+        return invalid;
+    }
+
+    private static void sleep(Duration backoff) {
+        try {
+            Thread.sleep(backoff);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new CepServiceUnavailableException("Interrupted while waiting to retry ViaCEP");
+        }
+    }
+
+    private ViaCepResponse fetchRemote(String cleanCep) {
+        boolean acquired;
+        try {
+            acquired = remoteCalls.tryAcquire(acquireTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new CepServiceUnavailableException("Interrupted while waiting for a ViaCEP slot");
+        }
+        if (!acquired) {
+            throw new CepServiceUnavailableException("Too many concurrent ViaCEP requests, CEP " + cleanCep + " not looked up");
+        }
+        long start = System.nanoTime();
+        try {
+            // URI template keeps the http.client.requests uri tag to a single value
+            return restTemplate.getForObject(viaCepUrl + "{cep}/json/", ViaCepResponse.class, cleanCep);
+        } catch (RuntimeException ex) {
+            remoteFailures.increment();
+            throw ex;
+        } finally {
+            remoteCalls.release();
+            long elapsed = System.nanoTime() - start;
+            remoteRequests.increment();
+            remoteNanos.add(elapsed);
+            maxRemoteNanos.accumulateAndGet(elapsed, Math::max);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        loadExecutor.shutdownNow();
+    }
+
+    // Unknown CEPs ("erro": true) are kept for a shorter time than valid addresses
+    private record CepExpiry(Duration ttl, Duration negativeTtl) implements Expiry<String, ViaCepResponse> {
+
+        @Override
+        public long expireAfterCreate(String cep, ViaCepResponse response, long currentTime) {
+            return (response.getError() != null ? negativeTtl : ttl).toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(String cep, ViaCepResponse response, long currentTime, long currentDuration) {
+            return expireAfterCreate(cep, response, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String cep, ViaCepResponse response, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
 }
@@ -0,0 +1,83 @@
+package com.java.dnc.school_manager.util;
+
+import com.java.dnc.school_manager.exception.InvalidCepException;
+
+/**
+ * Canonical CEP handling: the 8 digits without the mask ("01310100"), which is the key used by the
+ * CEP cache, the local CEP store and ViaCEP.
+ * <p>
+ * Accepted input is the 8 digits with or without the mask ({@code 01310-100}, {@code 01.310-100})
+ * and surrounding blanks. CEPs below {@code 01000-000} were never assigned and are rejected too.
+ * Validation scans the string once without allocating, so bad input never reaches ViaCEP.
+ */
+public final class CepUtils {
+
+    public static final int LENGTH = 8;
+
+    // Lowest assigned CEP (Sao Paulo, 01000-000)
+    private static final int FIRST_ASSIGNED = 1_000_000;
+
+    private CepUtils() {
+    }
+
+    public static boolean isValid(String cep) {
+        return parse(cep) >= 0;
+    }
+
+    // "01310-100" -> "01310100"
+    public static String normalize(String cep) {
+        String normalized = normalizeOrNull(cep);
+        if (normalized == null) {
+            throw new InvalidCepException("Invalid CEP: " + cep);
+        }
+        return normalized;
+    }
+
+    // Same as normalize, but null instead of an exception; input that is already clean is returned as is
+    public static String normalizeOrNull(String cep) {
+        int value = parse(cep);
+        if (value < 0) {
+            return null;
+        }
+        if (cep.length() == LENGTH) {
+            return cep;
+        }
+        String digits = Integer.toString(value);
+        return "0".repeat(LENGTH - digits.length()) + digits;
+    }
+
+    // The 8 digits as a number, or -1 when the shape or range is wrong. A dot may follow the 2nd
+    // digit and a hyphen the 5th, each at most once
+    private static int parse(String cep) {
+        if (cep == null) {
+            return -1;
+        }
+        int start = 0;
+        int end = cep.length();
+        while (start < end && Character.isWhitespace(cep.charAt(start))) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(cep.charAt(end - 1))) {
+            end--;
+        }
+        int value = 0;
+        int digits = 0;
+        boolean separated = false;
+        for (int i = start; i < end; i++) {
+            char c = cep.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (digits == LENGTH) {
+                    return -1;
+                }
+                value = value * 10 + (c - '0');
+                digits++;
+                separated = false;
+            } else if (!separated && (c == '.' && digits == 2 || c == '-' && digits == 5)) {
+                separated = true;
+            } else {
+                return -1;
+            }
+        }
+        return digits == LENGTH && !separated && value >= FIRST_ASSIGNED ? value : -1;
+    }
+}
@@ -0,0 +1,132 @@
+package com.java.dnc.school_manager.util;
+
+import com.java.dnc.school_manager.exception.InvalidCpfException;
+
+/**
+ * Canonical CPF handling. A CPF is kept as its 11 digits without the mask ("12345678909"), which
+ * is also how it is stored: as a {@code BIGINT}, padded back with leading zeros when read.
+ * <p>
+ * Accepted input is the 11 digits with or without the mask ({@code 123.456.789-09}) and surrounding
+ * blanks. Parsing and the check-digit test scan the string once without allocating, so bad input
+ * is rejected before any query or ViaCEP call.
+ */
+public final class CpfUtils {
+
+    public static final int LENGTH = 11;
+
+    private static final long MAX = 99_999_999_999L;
+    // 000.000.000-00, 111.111.111-11, ... pass the check digits but are not valid CPFs
+    private static final long REPEATED_DIGITS = 11_111_111_111L;
+
+    private CpfUtils() {
+    }
+
+    // "123.456.789-09" -> "12345678909"; checks the shape only, see requireValid
+    public static String normalize(String cpf) {
+        long value = parse(cpf);
+        if (value < 0) {
+            throw new InvalidCpfException("Invalid CPF: " + cpf);
+        }
+        return fromNumber(value);
+    }
+
+    // Same as normalize, but anything that is not a CPF is returned unchanged for the caller to report
+    public static String normalizeOrKeep(String cpf) {
+        long value = parse(cpf);
+        return value < 0 ? cpf : fromNumber(value);
+    }
+
+    // Normalised digits of a CPF whose check digits are right; InvalidCpfException otherwise
+    public static String requireValid(String cpf) {
+        if (!isValid(cpf)) {
+            throw new InvalidCpfException("Invalid CPF: " + cpf);
+        }
+        return normalize(cpf);
+    }
+
+    public static boolean isWellFormed(String cpf) {
+        return parse(cpf) >= 0;
+    }
+
+    // Well formed, not a run of one repeated digit, and both check digits match
+    public static boolean isValid(String cpf) {
+        long value = parse(cpf);
+        return value >= 0 && value % REPEATED_DIGITS != 0 && hasValidCheckDigits(value);
+    }
+
+    public static long toNumber(String cpf) {
+        long value = parse(cpf);
+        if (value < 0) {
+            throw new InvalidCpfException("Invalid CPF: " + cpf);
+        }
+        return value;
+    }
+
+    public static String fromNumber(long cpf) {
+        if (cpf < 0 || cpf > MAX) {
+            throw new InvalidCpfException("Invalid CPF: " + cpf);
+        }
+        String digits = Long.toString(cpf);
+        return digits.length() == LENGTH ? digits : "0".repeat(LENGTH - digits.length()) + digits;
+    }
+
+    // Appends both check digits to a 9-digit base: 123456789 -> 12345678909
+    public static long withCheckDigits(long base) {
+        if (base < 0 || base > MAX / 100) {
+            throw new InvalidCpfException("Invalid CPF base: " + base);
+        }
+        int first = checkDigit(base, 10);
+        int second = checkDigit(base * 10 + first, 11);
+        return base * 100 + first * 10 + second;
+    }
+
+    // The 11 digits as a number, or -1 when the shape is wrong. Dots may follow the 3rd and 6th
+    // digits and a hyphen the 9th, each at most once
+    private static long parse(String cpf) {
+        if (cpf == null) {
+            return -1;
+        }
+        int start = 0;
+        int end = cpf.length();
+        while (start < end && Character.isWhitespace(cpf.charAt(start))) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(cpf.charAt(end - 1))) {
+            end--;
+        }
+        long value = 0;
+        int digits = 0;
+        boolean separated = false;
+        for (int i = start; i < end; i++) {
+            char c = cpf.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (digits == LENGTH) {
+                    return -1;
+                }
+                value = value * 10 + (c - '0');
+                digits++;
+                separated = false;
+            } else if (!separated && (c == '.' && (digits == 3 || digits == 6) || c == '-' && digits == 9)) {
+                separated = true;
+            } else {
+                return -1;
+            }
+        }
+        return digits == LENGTH && !separated ? value : -1;
+    }
+
+    private static boolean hasValidCheckDigits(long cpf) {
+        return withCheckDigits(cpf / 100) == cpf;
+    }
+
+    // Modulo 11 with weights from maxWeight (leftmost digit) down to 2 (rightmost)
+    private static int checkDigit(long digits, int maxWeight) {
+        int sum = 0;
+        for (int weight = 2; weight <= maxWeight; weight++) {
+            sum += (int) (digits % 10) * weight;
+            digits /= 10;
+        }
+        int rest = sum * 10 % 11;
+        return rest == 10 ? 0 : rest;
+    }
+}
@@ -0,0 +1,13 @@
+package com.java.dnc.school_manager.validation;
+
+import com.java.dnc.school_manager.util.CepUtils;
+import jakarta.validation.ConstraintValidator;
+import jakarta.validation.ConstraintValidatorContext;
+
+public class CepValidator implements ConstraintValidator<ValidCep, String> {
+
+    @Override
+    public boolean isValid(String value, ConstraintValidatorContext context) {
+        return value == null || value.isBlank() || CepUtils.isValid(value);
+    }
+}
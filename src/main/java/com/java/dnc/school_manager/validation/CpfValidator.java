@@ -0,0 +1,13 @@
+package com.java.dnc.school_manager.validation;
+
+import com.java.dnc.school_manager.util.CpfUtils;
+import jakarta.validation.ConstraintValidator;
+import jakarta.validation.ConstraintValidatorContext;
+
+public class CpfValidator implements ConstraintValidator<ValidCpf, String> {
+
+    @Override
+    public boolean isValid(String value, ConstraintValidatorContext context) {
+        return value == null || value.isBlank() || CpfUtils.isValid(value);
+    }
+}
@@ -0,0 +1,27 @@
+package com.java.dnc.school_manager.validation;
+
+import jakarta.validation.Constraint;
+import jakarta.validation.Payload;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * A CEP with or without the mask, 8 digits in the assigned range. Null and blank values pass, so
+ * combine with {@code @NotBlank} when the CEP is required.
+ */
+@Documented
+@Constraint(validatedBy = CepValidator.class)
+@Target({ElementType.FIELD, ElementType.PARAMETER})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ValidCep {
+
+    String message() default "Invalid CEP";
+
+    Class<?>[] groups() default {};
+
+    Class<? extends Payload>[] payload() default {};
+}
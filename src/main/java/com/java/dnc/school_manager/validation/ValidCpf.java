@@ -0,0 +1,27 @@
+package com.java.dnc.school_manager.validation;
+
+import jakarta.validation.Constraint;
+import jakarta.validation.Payload;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * A CPF with or without the mask whose check digits are right. Null and blank values pass, so
+ * combine with {@code @NotBlank} when the CPF is required.
+ */
+@Documented
+@Constraint(validatedBy = CpfValidator.class)
+@Target({ElementType.FIELD, ElementType.PARAMETER})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ValidCpf {
+
+    String message() default "Invalid CPF";
+
+    Class<?>[] groups() default {};
+
+    Class<? extends Payload>[] payload() default {};
+}
@@ -0,0 +1,45 @@
+create sequence person_seq start with 1 increment by 50;
+
+create table students (
+    id                bigint       not null,
+    name              varchar(255) not null,
+    cpf               bigint       not null,
+    email             varchar(255) not null,
+    phone_number      varchar(255) not null,
+    registration      varchar(255),
+    registration_date date,
+    cep               varchar(255),
+    street            varchar(255),
+    number            varchar(255),
+    complement        varchar(255),
+    neighborhood      varchar(255),
+    city              varchar(255),
+    uf                varchar(255),
+    address_status    varchar(16),
+    constraint pk_students primary key (id),
+    constraint uk_students_cpf unique (cpf)
+);
+
+create table teachers (
+    id                bigint       not null,
+    name              varchar(255) not null,
+    cpf               bigint       not null,
+    email             varchar(255) not null,
+    phone_number      varchar(255) not null,
+    subject           varchar(255),
+    hiring_date       date,
+    cep               varchar(255),
+    street            varchar(255),
+    number            varchar(255),
+    complement        varchar(255),
+    neighborhood      varchar(255),
+    city              varchar(255),
+    uf                varchar(255),
+    address_status    varchar(16),
+    constraint pk_teachers primary key (id),
+    constraint uk_teachers_cpf unique (cpf)
+);
+
+-- Backlog scan of the address enrichment worker
+create index idx_students_address_status on students (address_status, id);
+create index idx_teachers_address_status on teachers (address_status, id);
@@ -0,0 +1,11 @@
+-- Search filters: city alone or with neighborhood, neighborhood alone, uf alone or with city, and date ranges
+create index idx_students_city_neighborhood on students (city, neighborhood);
+create index idx_students_neighborhood on students (neighborhood);
+create index idx_students_uf_city on students (uf, city);
+create index idx_students_registration_date on students (registration_date);
+
+create index idx_teachers_city_neighborhood on teachers (city, neighborhood);
+create index idx_teachers_neighborhood on teachers (neighborhood);
+create index idx_teachers_uf_city on teachers (uf, city);
+create index idx_teachers_subject_hiring_date on teachers (subject, hiring_date);
+create index idx_teachers_hiring_date on teachers (hiring_date);
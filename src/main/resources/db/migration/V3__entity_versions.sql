@@ -0,0 +1,6 @@
+-- Optimistic locking version and last change, served as ETag and Last-Modified
+alter table students add column version bigint default 0 not null;
+alter table students add column updated_at timestamp(6) with time zone default current_timestamp not null;
+
+alter table teachers add column version bigint default 0 not null;
+alter table teachers add column updated_at timestamp(6) with time zone default current_timestamp not null;
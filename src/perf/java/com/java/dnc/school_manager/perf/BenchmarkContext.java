@@ -0,0 +1,58 @@
+package com.java.dnc.school_manager.perf;
+
+import com.java.dnc.school_manager.SchoolManagerApplication;
+import com.java.dnc.school_manager.dto.StudentDTO;
+import com.java.dnc.school_manager.util.CpfUtils;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+
+/**
+ * Boots the application without the web layer against the in-memory H2 database and a
+ * {@link ViaCepStub}. The disk CEP index and the enrichment worker are turned off so every
+ * benchmark sees the same cache-then-HTTP path.
+ */
+public final class BenchmarkContext implements AutoCloseable {
+
+    private final ViaCepStub viaCepStub;
+    private final ConfigurableApplicationContext context;
+
+    public BenchmarkContext() throws Exception {
+        viaCepStub = new ViaCepStub(0, 0);
+        context = new SpringApplicationBuilder(SchoolManagerApplication.class)
+                .web(WebApplicationType.NONE)
+                // Passed as arguments so they win over application.properties
+                .run("--viacep.url=" + viaCepStub.url(),
+                        "--viacep.store.enabled=false",
+                        "--enrichment.async=false",
+                        "--enrichment.interval=1h",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=warn");
+    }
+
+    public <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    // Valid student whose CPF is the sequence number (9 digits at most) plus its check digits
+    public static StudentDTO student(long sequence, String cep) {
+        StudentDTO dto = new StudentDTO();
+        dto.setName("Student " + sequence);
+        dto.setCpf(CpfUtils.fromNumber(CpfUtils.withCheckDigits(sequence)));
+        dto.setEmail("student" + sequence + "@email.com");
+        dto.setPhoneNumber("11999999999");
+        dto.setRegistration("REG" + sequence);
+        dto.setRegistrationDate(LocalDate.of(2024, 1, 15));
+        dto.setCep(cep);
+        dto.setNumber("100");
+        return dto;
+    }
+
+    @Override
+    public void close() {
+        context.close();
+        viaCepStub.close();
+    }
+}
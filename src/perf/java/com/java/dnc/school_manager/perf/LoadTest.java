@@ -0,0 +1,331 @@
+package com.java.dnc.school_manager.perf;
+
+import com.java.dnc.school_manager.SchoolManagerApplication;
+import com.java.dnc.school_manager.util.CpfUtils;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * End-to-end load test: boots the application on a random port against a {@link ViaCepStub}
+ * and drives mixed read/write traffic at the student and teacher endpoints, recording
+ * latency per endpoint in HdrHistograms.
+ * <p>
+ * Harness options ({@code --name=value}): duration, warmup, concurrency, rate (requests per
+ * second in total, 0 for a closed loop), read-ratio, seed, ceps, stub-latency, stub-error-rate
+ * and output. Any other argument is passed to the application, e.g. {@code --enrichment.async=false}.
+ * With a fixed rate, latency is measured from the intended send time so a stalled server is
+ * not hidden by coordinated omission.
+ */
+public final class LoadTest {
+
+    private static final Map<String, String> DEFAULTS = Map.of(
+            "duration", "30s",
+            "warmup", "10s",
+            "concurrency", "64",
+            "rate", "0",
+            "read-ratio", "0.8",
+            "seed", "1000",
+            "ceps", "100",
+            "stub-latency", "20ms",
+            "stub-error-rate", "0",
+            "output", "target/loadtest");
+
+    private static final Pattern ID = Pattern.compile("\"id\"\\s*:\\s*(\\d+)");
+    private static final long HIGHEST_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    private enum Operation {
+        GET_STUDENT("GET /api/students/{id}"),
+        GET_TEACHER("GET /api/teachers/{id}"),
+        LIST_STUDENTS("GET /api/students?page"),
+        LIST_TEACHERS("GET /api/teachers?page"),
+        CREATE_STUDENT("POST /api/students"),
+        CREATE_TEACHER("POST /api/teachers");
+
+        private final String label;
+
+        Operation(String label) {
+            this.label = label;
+        }
+    }
+
+    private final Map<String, String> options;
+    private final String baseUrl;
+    private final HttpClient client;
+    private final Map<Operation, Histogram> histograms = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+    private final AtomicLong nextCpf = new AtomicLong(100_000_000L);
+    private final String[] ceps;
+    private long[] studentIds;
+    private long[] teacherIds;
+    private volatile boolean measuring;
+
+    private LoadTest(Map<String, String> options, int port) {
+        this.options = options;
+        this.baseUrl = "http://127.0.0.1:" + port;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        for (Operation operation : Operation.values()) {
+            histograms.put(operation, new ConcurrentHistogram(HIGHEST_MICROS, 3));
+            errors.put(operation, new LongAdder());
+        }
+        int cepCount = Integer.parseInt(options.get("ceps"));
+        ceps = new String[cepCount];
+        for (int i = 0; i < cepCount; i++) {
+            ceps[i] = String.format("%08d", 1_000_000 + i * 1000);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>(DEFAULTS);
+        List<String> applicationArgs = new ArrayList<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            String name = arg.startsWith("--") && separator > 2 ? arg.substring(2, separator) : null;
+            if (name != null && DEFAULTS.containsKey(name)) {
+                options.put(name, arg.substring(separator + 1));
+            } else {
+                applicationArgs.add(arg);
+            }
+        }
+
+        try (ViaCepStub viaCepStub = new ViaCepStub(parseDuration(options.get("stub-latency")).toMillis(),
+                Double.parseDouble(options.get("stub-error-rate")))) {
+            defaultArg(applicationArgs, "server.port", "0");
+            defaultArg(applicationArgs, "viacep.url", viaCepStub.url());
+            defaultArg(applicationArgs, "viacep.store.enabled", "false");
+            defaultArg(applicationArgs, "spring.jpa.show-sql", "false");
+            defaultArg(applicationArgs, "logging.level.root", "warn");
+            try (ConfigurableApplicationContext context = new SpringApplicationBuilder(SchoolManagerApplication.class)
+                    .run(applicationArgs.toArray(String[]::new))) {
+                int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+                new LoadTest(options, port).run();
+            }
+        }
+        System.exit(0);
+    }
+
+    private void run() throws Exception {
+        int concurrency = Integer.parseInt(options.get("concurrency"));
+        int seed = Integer.parseInt(options.get("seed"));
+        System.out.printf("Seeding %d students and %d teachers%n", seed, seed);
+        studentIds = seed(Operation.CREATE_STUDENT, seed, concurrency);
+        teacherIds = seed(Operation.CREATE_TEACHER, seed, concurrency);
+
+        Duration warmup = parseDuration(options.get("warmup"));
+        Duration duration = parseDuration(options.get("duration"));
+        double rate = Double.parseDouble(options.get("rate"));
+        double readRatio = Double.parseDouble(options.get("read-ratio"));
+        System.out.printf("Running %d workers for %s after %s warm-up (%s)%n", concurrency, duration, warmup,
+                rate > 0 ? "fixed rate " + rate + " req/s" : "closed loop");
+
+        long start = System.nanoTime();
+        long measureFrom = start + warmup.toNanos();
+        long end = measureFrom + duration.toNanos();
+        long intervalNanos = rate > 0 ? (long) (concurrency * 1_000_000_000L / rate) : 0;
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < concurrency; i++) {
+                long offset = intervalNanos * i / concurrency;
+                workers.submit(() -> work(start + offset, intervalNanos, end, readRatio));
+            }
+            long untilMeasure = measureFrom - System.nanoTime();
+            if (untilMeasure > 0) {
+                TimeUnit.NANOSECONDS.sleep(untilMeasure);
+            }
+            measuring = true;
+        }
+        report(duration);
+    }
+
+    private Void work(long firstSend, long intervalNanos, long end, double readRatio) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long intended = firstSend;
+        while (true) {
+            long now = System.nanoTime();
+            if (intervalNanos > 0) {
+                if (intended > now) {
+                    LockSupport.parkNanos(intended - now);
+                }
+            } else {
+                intended = now;
+            }
+            if (intended >= end) {
+                return null;
+            }
+            Operation operation = pick(random, readRatio);
+            boolean ok;
+            try {
+                ok = isSuccess(client.send(request(operation, random), HttpResponse.BodyHandlers.discarding()).statusCode());
+            } catch (IOException ex) {
+                ok = false;
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+            if (measuring) {
+                long micros = (System.nanoTime() - intended) / 1000;
+                histograms.get(operation).recordValue(Math.min(micros, HIGHEST_MICROS));
+                if (!ok) {
+                    errors.get(operation).increment();
+                }
+            }
+            intended += intervalNanos;
+        }
+    }
+
+    private static Operation pick(ThreadLocalRandom random, double readRatio) {
+        if (random.nextDouble() < readRatio) {
+            return switch (random.nextInt(4)) {
+                case 0 -> Operation.GET_STUDENT;
+                case 1 -> Operation.GET_TEACHER;
+                case 2 -> Operation.LIST_STUDENTS;
+                default -> Operation.LIST_TEACHERS;
+            };
+        }
+        return random.nextBoolean() ? Operation.CREATE_STUDENT : Operation.CREATE_TEACHER;
+    }
+
+    private HttpRequest request(Operation operation, ThreadLocalRandom random) {
+        return switch (operation) {
+            case GET_STUDENT -> get("/api/students/" + studentIds[random.nextInt(studentIds.length)]);
+            case GET_TEACHER -> get("/api/teachers/" + teacherIds[random.nextInt(teacherIds.length)]);
+            case LIST_STUDENTS -> get("/api/students?page=" + random.nextInt(10) + "&size=20");
+            case LIST_TEACHERS -> get("/api/teachers?page=" + random.nextInt(10) + "&size=20");
+            case CREATE_STUDENT -> post("/api/students", studentJson(random));
+            case CREATE_TEACHER -> post("/api/teachers", teacherJson(random));
+        };
+    }
+
+    private long[] seed(Operation operation, int count, int concurrency) throws Exception {
+        long[] ids = new long[count];
+        Semaphore inFlight = new Semaphore(concurrency);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Long>> futures = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                inFlight.acquire();
+                futures.add(executor.submit(() -> {
+                    try {
+                        HttpResponse<String> response = client.send(request(operation, ThreadLocalRandom.current()),
+                                HttpResponse.BodyHandlers.ofString());
+                        Matcher matcher = ID.matcher(response.body());
+                        if (!isSuccess(response.statusCode()) || !matcher.find()) {
+                            throw new IllegalStateException("Seeding failed with HTTP " + response.statusCode()
+                                    + ": " + response.body());
+                        }
+                        return Long.parseLong(matcher.group(1));
+                    } finally {
+                        inFlight.release();
+                    }
+                }));
+            }
+            for (int i = 0; i < count; i++) {
+                ids[i] = futures.get(i).get();
+            }
+        }
+        return ids;
+    }
+
+    private void report(Duration duration) throws IOException {
+        Path output = Path.of(options.get("output"));
+        Files.createDirectories(output);
+        double seconds = duration.toNanos() / 1e9;
+        long total = 0;
+        System.out.printf("%n%-26s %9s %9s %7s %9s %9s %9s %9s%n",
+                "endpoint", "count", "req/s", "errors", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        for (Operation operation : Operation.values()) {
+            Histogram histogram = histograms.get(operation);
+            long count = histogram.getTotalCount();
+            total += count;
+            System.out.printf("%-26s %9d %9.1f %7d %9.2f %9.2f %9.2f %9.2f%n", operation.label, count, count / seconds,
+                    errors.get(operation).sum(), millis(histogram, 50), millis(histogram, 99), millis(histogram, 99.9),
+                    histogram.getMaxValue() / 1000.0);
+            try (PrintStream out = new PrintStream(Files.newOutputStream(
+                    output.resolve(operation.name().toLowerCase(Locale.ROOT) + ".hgrm")))) {
+                histogram.outputPercentileDistribution(out, 1000.0);
+            }
+        }
+        System.out.printf("%-26s %9d %9.1f%n", "total", total, total / seconds);
+        System.out.println("Percentile distributions (ms) written to " + output.toAbsolutePath());
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    private static boolean isSuccess(int status) {
+        return status >= 200 && status < 300;
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(Duration.ofSeconds(30)).GET().build();
+    }
+
+    private HttpRequest post(String path, String json) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    private String studentJson(ThreadLocalRandom random) {
+        long cpf = nextCpf.getAndIncrement();
+        return """
+                {"name": "Student %d", "cpf": "%s", "email": "student%d@email.com", "phoneNumber": "11999999999",
+                 "registration": "REG%d", "registrationDate": "2024-01-15", "cep": "%s", "number": "100"}"""
+                .formatted(cpf, CpfUtils.fromNumber(CpfUtils.withCheckDigits(cpf)), cpf, cpf, ceps[random.nextInt(ceps.length)]);
+    }
+
+    private String teacherJson(ThreadLocalRandom random) {
+        long cpf = nextCpf.getAndIncrement();
+        return """
+                {"name": "Teacher %d", "cpf": "%s", "email": "teacher%d@email.com", "phoneNumber": "11888888888",
+                 "subject": "Mathematics", "hiringDate": "2020-03-01", "cep": "%s", "number": "200"}"""
+                .formatted(cpf, CpfUtils.fromNumber(CpfUtils.withCheckDigits(cpf)), cpf, ceps[random.nextInt(ceps.length)]);
+    }
+
+    private static void defaultArg(List<String> args, String name, String value) {
+        String prefix = "--" + name + "=";
+        if (args.stream().noneMatch(arg -> arg.startsWith(prefix))) {
+            args.add(prefix + value);
+        }
+    }
+
+    // Accepts 30s, 500ms, 2m or ISO-8601 (PT30S)
+    private static Duration parseDuration(String value) {
+        if (value.startsWith("P") || value.startsWith("p")) {
+            return Duration.parse(value);
+        }
+        if (value.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2)));
+        }
+        long amount = Long.parseLong(value.substring(0, value.length() - 1));
+        return switch (value.charAt(value.length() - 1)) {
+            case 's' -> Duration.ofSeconds(amount);
+            case 'm' -> Duration.ofMinutes(amount);
+            default -> throw new IllegalArgumentException("Unsupported duration: " + value);
+        };
+    }
+}
@@ -0,0 +1,60 @@
+package com.java.dnc.school_manager.perf;
+
+import com.java.dnc.school_manager.service.NameIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Typeahead queries against a name index of 500k generated people, plus the cost of keeping it
+ * current on update.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class NameIndexBenchmark {
+
+    private static final String[] FIRST = {"João", "Maria", "José", "Ana", "Antônio", "Francisca", "Carlos", "Paulo",
+            "Adriana", "Lucas", "Juliana", "Marcos", "Fernanda", "Rafael", "Patrícia", "Luís", "Camila", "Gabriel",
+            "Letícia", "Pedro", "Aline", "Mateus", "Sandra", "Bruno", "Vitória", "Felipe", "Larissa", "Gustavo"};
+    private static final String[] LAST = {"Silva", "Santos", "Oliveira", "Souza", "Rodrigues", "Ferreira", "Alves",
+            "Pereira", "Lima", "Gomes", "Costa", "Ribeiro", "Martins", "Carvalho", "Almeida", "Lopes", "Soares",
+            "Fernandes", "Vieira", "Barbosa", "Rocha", "Dias", "Nascimento", "Andrade", "Moreira", "Nunes", "Conceição"};
+
+    @Param("500000")
+    public int records;
+
+    // Short prefix, full name, misspelled name, name and partial surname
+    @Param({"jo", "fernanda rodrigues", "gustvo nacimento", "ana lima gom"})
+    public String query;
+
+    private NameIndex index;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        index = new NameIndex();
+        SplittableRandom random = new SplittableRandom(42);
+        for (long id = 1; id <= records; id++) {
+            String name = FIRST[random.nextInt(FIRST.length)] + " " + LAST[random.nextInt(LAST.length)] + " "
+                    + LAST[random.nextInt(LAST.length)];
+            index.put(id, name, "user" + id + "@email.com");
+        }
+    }
+
+    @Benchmark
+    public List<NameIndex.Match> search() {
+        return index.search(query, 10);
+    }
+
+    @Benchmark
+    public void update() {
+        long id = 1 + (next++ % records);
+        index.put(id, "Renomeado Pessoa " + id, "user" + id + "@email.com");
+    }
+}
@@ -0,0 +1,96 @@
+package com.java.dnc.school_manager.perf;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.java.dnc.school_manager.model.Address;
+import com.java.dnc.school_manager.model.AddressStatus;
+import com.java.dnc.school_manager.model.Student;
+import com.java.dnc.school_manager.util.CpfUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cost of writing a student list in each negotiated format (JSON, CBOR, Smile), with and without
+ * the gzip the server applies for {@code Accept-Encoding: gzip}. The payload size of every
+ * combination is printed once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseFormatBenchmark {
+
+    @Param({"json", "cbor", "smile"})
+    private String format;
+
+    @Param({"false", "true"})
+    private boolean gzip;
+
+    @Param({"20", "1000"})
+    private int size;
+
+    private ObjectMapper objectMapper;
+    private List<Student> students;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        objectMapper = switch (format) {
+            case "cbor" -> CBORMapper.builder().findAndAddModules().build();
+            case "smile" -> SmileMapper.builder().findAndAddModules().build();
+            default -> JsonMapper.builder().findAndAddModules().build();
+        };
+
+        students = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Address address = new Address();
+            address.setCep(String.format("%08d", 1_310_100 + i % 100));
+            address.setStreet("Avenida Paulista");
+            address.setNumber(Integer.toString(100 + i));
+            address.setNeighborhood("Bela Vista");
+            address.setCity("Sao Paulo");
+            address.setUf("SP");
+            address.setAddressStatus(AddressStatus.RESOLVED);
+
+            Student student = new Student();
+            student.setId(i + 1L);
+            student.setVersion(0L);
+            student.setUpdatedAt(Instant.parse("2024-01-15T10:00:00Z").plusSeconds(i));
+            student.setName("Student " + i);
+            student.setCpf(CpfUtils.fromNumber(CpfUtils.withCheckDigits(100_000_000L + i)));
+            student.setEmail("student" + i + "@email.com");
+            student.setPhoneNumber("11999999999");
+            student.setRegistration("REG" + i);
+            student.setRegistrationDate(LocalDate.of(2024, 1, 15));
+            student.setAddress(address);
+            students.add(student);
+        }
+
+        System.out.printf("%n%s%s, %d students: %d bytes%n", format, gzip ? "+gzip" : "", size, writeList().length);
+    }
+
+    @Benchmark
+    public byte[] writeList() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(size * 256);
+        if (gzip) {
+            try (OutputStream out = new GZIPOutputStream(bytes, 8192)) {
+                objectMapper.writeValue(out, students);
+            }
+        } else {
+            objectMapper.writeValue(bytes, students);
+        }
+        return bytes.toByteArray();
+    }
+}
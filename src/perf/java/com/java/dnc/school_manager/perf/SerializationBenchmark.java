@@ -0,0 +1,83 @@
+package com.java.dnc.school_manager.perf;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.java.dnc.school_manager.dto.StudentDTO;
+import com.java.dnc.school_manager.model.Address;
+import com.java.dnc.school_manager.model.AddressStatus;
+import com.java.dnc.school_manager.model.Student;
+import com.java.dnc.school_manager.model.Teacher;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson cost of the response bodies and of reading a request body, with the same
+ * module set Spring Boot registers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+    private ObjectMapper objectMapper;
+    private Student student;
+    private Teacher teacher;
+    private byte[] studentJson;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        objectMapper = JsonMapper.builder().findAndAddModules().build();
+
+        Address address = new Address();
+        address.setCep("01310100");
+        address.setStreet("Avenida Paulista");
+        address.setNumber("1000");
+        address.setNeighborhood("Bela Vista");
+        address.setCity("Sao Paulo");
+        address.setUf("SP");
+        address.setAddressStatus(AddressStatus.RESOLVED);
+
+        student = new Student();
+        student.setId(1L);
+        student.setName("Joao Silva");
+        student.setCpf("12345678909");
+        student.setEmail("joao@email.com");
+        student.setPhoneNumber("11999999999");
+        student.setRegistration("2024001");
+        student.setRegistrationDate(LocalDate.of(2024, 1, 15));
+        student.setAddress(address);
+
+        teacher = new Teacher();
+        teacher.setId(1L);
+        teacher.setName("Maria Santos");
+        teacher.setCpf("98765432100");
+        teacher.setEmail("maria@email.com");
+        teacher.setPhoneNumber("11888888888");
+        teacher.setSubject("Mathematics");
+        teacher.setHiringDate(LocalDate.of(2020, 3, 1));
+        teacher.setAddress(address);
+
+        studentJson = objectMapper.writeValueAsBytes(BenchmarkContext.student(123456789L, "01310100"));
+    }
+
+    @Benchmark
+    public byte[] writeStudent() throws IOException {
+        return objectMapper.writeValueAsBytes(student);
+    }
+
+    @Benchmark
+    public byte[] writeTeacher() throws IOException {
+        return objectMapper.writeValueAsBytes(teacher);
+    }
+
+    @Benchmark
+    public StudentDTO readStudentDto() throws IOException {
+        return objectMapper.readValue(studentJson, StudentDTO.class);
+    }
+}
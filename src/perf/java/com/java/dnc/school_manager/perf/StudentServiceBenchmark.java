@@ -0,0 +1,69 @@
+package com.java.dnc.school_manager.perf;
+
+import com.java.dnc.school_manager.dto.StudentDTO;
+import com.java.dnc.school_manager.model.Student;
+import com.java.dnc.school_manager.service.StudentService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service round-trips against H2 and the ViaCEP stub. CEPs repeat, so after warm-up
+ * create and update measure the cached lookup plus mapping and persistence.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StudentServiceBenchmark {
+
+    private static final int SEEDED_ROWS = 1000;
+    private static final String[] CEPS = {"01310100", "04538133", "20040002", "30130010"};
+
+    private BenchmarkContext context;
+    private StudentService studentService;
+    private long[] ids;
+    private long nextCpf = 500_000_000L;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        context = new BenchmarkContext();
+        studentService = context.bean(StudentService.class);
+        ids = new long[SEEDED_ROWS];
+        for (int i = 0; i < SEEDED_ROWS; i++) {
+            ids[i] = studentService.create(BenchmarkContext.student(i + 1, CEPS[i % CEPS.length])).getId();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Student create() {
+        long cpf = nextCpf++;
+        return studentService.create(BenchmarkContext.student(cpf, CEPS[(int) (cpf % CEPS.length)]));
+    }
+
+    @Benchmark
+    public Student update() {
+        int index = cursor++ % SEEDED_ROWS;
+        StudentDTO dto = BenchmarkContext.student(index + 1, CEPS[cursor % CEPS.length]);
+        return studentService.update(ids[index], dto);
+    }
+
+    @Benchmark
+    public Student findById() {
+        return studentService.findById(ids[cursor++ % SEEDED_ROWS]);
+    }
+
+    @Benchmark
+    public List<Student> findAll() {
+        return studentService.findAll();
+    }
+}
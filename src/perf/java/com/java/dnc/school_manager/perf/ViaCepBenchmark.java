@@ -0,0 +1,54 @@
+package com.java.dnc.school_manager.perf;
+
+import com.java.dnc.school_manager.dto.ViaCepResponse;
+import com.java.dnc.school_manager.service.ViaCepService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CEP lookup cost: a cache hit (normalisation plus Caffeine), a miss that goes to the
+ * local stub over the pooled HTTP client, and the regex normalisation on its own.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ViaCepBenchmark {
+
+    private BenchmarkContext context;
+    private ViaCepService viaCepService;
+    private int nextMiss = 10_000_000;
+
+    @Param({"01310-100"})
+    public String cep;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        context = new BenchmarkContext();
+        viaCepService = context.bean(ViaCepService.class);
+        viaCepService.fetchAddress(cep);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public ViaCepResponse fetchAddressCached() {
+        return viaCepService.fetchAddress(cep);
+    }
+
+    @Benchmark
+    public ViaCepResponse fetchAddressMiss() {
+        return viaCepService.fetchAddress(Integer.toString(nextMiss++));
+    }
+
+    @Benchmark
+    public String normalizeCep() {
+        return cep.replaceAll("\\D", "");
+    }
+}
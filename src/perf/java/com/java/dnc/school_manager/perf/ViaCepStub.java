@@ -0,0 +1,71 @@
+package com.java.dnc.school_manager.perf;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Local stand-in for ViaCEP answering {@code /ws/{cep}/json/} with a fixed address,
+ * so benchmarks and load tests measure this application rather than the public service.
+ * CEP 99999999 answers {@code {"erro": "true"}}, like ViaCEP does for unknown CEPs.
+ * Latency and a share of 503 answers can be injected to rehearse a degraded upstream.
+ */
+public class ViaCepStub implements AutoCloseable {
+
+    public static final String UNKNOWN_CEP = "99999999";
+
+    private final HttpServer server;
+    private final long latencyMillis;
+    private final double errorRate;
+
+    public ViaCepStub(long latencyMillis, double errorRate) throws IOException {
+        this.latencyMillis = latencyMillis;
+        this.errorRate = errorRate;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/ws/", this::handle);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.start();
+    }
+
+    // Base URL to use as viacep.url
+    public String url() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/ws/";
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String[] parts = exchange.getRequestURI().getPath().split("/");
+        String cep = parts.length > 2 ? parts[2] : "";
+        if (latencyMillis > 0) {
+            try {
+                Thread.sleep(latencyMillis);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+            exchange.sendResponseHeaders(503, -1);
+            exchange.close();
+            return;
+        }
+        String body = UNKNOWN_CEP.equals(cep) ? "{\"erro\": \"true\"}" : """
+                {"cep": "%s", "logradouro": "Avenida Paulista", "complemento": "", "bairro": "Bela Vista",
+                 "localidade": "Sao Paulo", "uf": "SP"}""".formatted(cep);
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
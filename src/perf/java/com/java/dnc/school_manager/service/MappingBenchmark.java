@@ -0,0 +1,52 @@
+package com.java.dnc.school_manager.service;
+
+import com.java.dnc.school_manager.dto.StudentDTO;
+import com.java.dnc.school_manager.dto.ViaCepResponse;
+import com.java.dnc.school_manager.model.Student;
+import com.java.dnc.school_manager.perf.BenchmarkContext;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DTO to entity mapping on its own, with and without a ViaCEP answer. Lives in the
+ * service package because {@code mapToEntity} is package-private.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MappingBenchmark {
+
+    private StudentService studentService;
+    private StudentDTO dto;
+    private ViaCepResponse viaCep;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // mapToEntity touches none of the collaborators
+        studentService = new StudentService(null, null, null, null, null, null, null, null);
+        dto = BenchmarkContext.student(123456789L, "01310100");
+        viaCep = new ViaCepResponse();
+        viaCep.setStreet("Avenida Paulista");
+        viaCep.setNeighborhood("Bela Vista");
+        viaCep.setCity("Sao Paulo");
+        viaCep.setUf("SP");
+    }
+
+    @Benchmark
+    public Student mapResolved() {
+        Student student = new Student();
+        studentService.mapToEntity(dto, student, viaCep);
+        return student;
+    }
+
+    @Benchmark
+    public Student mapPending() {
+        Student student = new Student();
+        studentService.mapToEntity(dto, student, null);
+        return student;
+    }
+}
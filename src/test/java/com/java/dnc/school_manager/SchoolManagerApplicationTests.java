@@ -3,7 +3,10 @@ package com.java.dnc.school_manager;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+@SpringBootTest(properties = {
+		"viacep.store.path=target/test-data/cep-index.dat",
+		"viacep.store.capacity=1024"
+})
 class SchoolManagerApplicationTests {
 
 	@Test
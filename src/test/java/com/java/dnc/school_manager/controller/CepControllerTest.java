@@ -0,0 +1,45 @@
+package com.java.dnc.school_manager.controller;
+
+import com.java.dnc.school_manager.service.CepImportService;
+import com.java.dnc.school_manager.service.ViaCepService;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(CepController.class)
+class CepControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private ViaCepService viaCepService;
+
+    @MockitoBean
+    private CepImportService cepImportService;
+
+    @MockitoBean
+    private PoolingHttpClientConnectionManager httpConnectionManager;
+
+    @Test
+    @DisplayName("POST /api/cep/import - Should return 415 for a form-encoded body")
+    void importDataset_ShouldReturnUnsupportedMediaType_WhenBodyIsFormEncoded() throws Exception {
+        mockMvc.perform(post("/api/cep/import")
+                        .contentType(MediaType.APPLICATION_FORM_URLENCODED)
+                        .content("cep=01310100&logradouro=Avenida+Paulista"))
+                .andExpect(status().isUnsupportedMediaType());
+
+        verify(cepImportService, never()).importDataset(any(), any());
+    }
+}
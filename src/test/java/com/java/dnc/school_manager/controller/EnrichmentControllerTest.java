@@ -0,0 +1,39 @@
+package com.java.dnc.school_manager.controller;
+
+import com.java.dnc.school_manager.dto.EnrichmentStatus;
+import com.java.dnc.school_manager.service.AddressEnrichmentService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(EnrichmentController.class)
+class EnrichmentControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private AddressEnrichmentService addressEnrichmentService;
+
+    @Test
+    @DisplayName("GET /api/enrichment/status - Should return backlog and throughput")
+    void status_ShouldReturnEnrichmentStatus() throws Exception {
+        EnrichmentStatus status = new EnrichmentStatus();
+        status.setAsyncEnabled(true);
+        status.setPendingStudents(12);
+        status.setRowsPerSecond(250.0);
+        when(addressEnrichmentService.getStatus()).thenReturn(status);
+
+        mockMvc.perform(get("/api/enrichment/status"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.pendingStudents").value(12))
+                .andExpect(jsonPath("$.rowsPerSecond").value(250.0));
+    }
+}
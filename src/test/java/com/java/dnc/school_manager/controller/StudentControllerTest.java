@@ -1,9 +1,20 @@
 package com.java.dnc.school_manager.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.java.dnc.school_manager.dto.BulkImportResult;
+import com.java.dnc.school_manager.dto.CursorPageResponse;
+import com.java.dnc.school_manager.dto.LookupResult;
+import com.java.dnc.school_manager.dto.PageResponse;
 import com.java.dnc.school_manager.dto.StudentDTO;
+import com.java.dnc.school_manager.dto.StudentSearch;
+import com.java.dnc.school_manager.exception.CepServiceUnavailableException;
 import com.java.dnc.school_manager.exception.DuplicateCpfException;
+import com.java.dnc.school_manager.exception.PreconditionFailedException;
 import com.java.dnc.school_manager.exception.ResourceNotFoundException;
+import com.java.dnc.school_manager.exception.SubscriberLimitException;
 import com.java.dnc.school_manager.model.Address;
 import com.java.dnc.school_manager.model.Student;
 import com.java.dnc.school_manager.service.StudentService;
@@ -12,14 +23,32 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -52,14 +81,14 @@ class StudentControllerTest {
         student = new Student();
         student.setId(1L);
         student.setName("Joao Silva");
-        student.setCpf("12345678900");
+        student.setCpf("12345678909");
         student.setEmail("joao@email.com");
         student.setPhoneNumber("11999999999");
         student.setAddress(address);
 
         studentDTO = new StudentDTO();
         studentDTO.setName("Joao Silva");
-        studentDTO.setCpf("12345678900");
+        studentDTO.setCpf("12345678909");
         studentDTO.setEmail("joao@email.com");
         studentDTO.setPhoneNumber("11999999999");
         studentDTO.setCep("01310100");
@@ -76,6 +105,159 @@ class StudentControllerTest {
                 .andExpect(jsonPath("$[0].name").value("Joao Silva"));
     }
 
+    @Test
+    @DisplayName("GET /api/students?page&size&sort - Should return a page")
+    void findAll_ShouldReturnPage_WhenPageIsRequested() throws Exception {
+        when(studentService.findPage(1, 5, "name")).thenReturn(new PageResponse<>(Arrays.asList(student), 1, 5, 6, 2));
+
+        mockMvc.perform(get("/api/students").param("page", "1").param("size", "5").param("sort", "name"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].name").value("Joao Silva"))
+                .andExpect(jsonPath("$.totalPages").value(2));
+    }
+
+    @Test
+    @DisplayName("GET /api/students/search - Should return the filtered page")
+    void search_ShouldReturnPage() throws Exception {
+        when(studentService.search(any(StudentSearch.class), eq(0), eq(10), eq("name")))
+                .thenReturn(new PageResponse<>(Arrays.asList(student), 0, 10, 1, 1));
+
+        mockMvc.perform(get("/api/students/search").param("city", "Sao Paulo").param("uf", "SP").param("registrationFrom", "2024-01-01")
+                        .param("page", "0").param("size", "10").param("sort", "name"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].name").value("Joao Silva"))
+                .andExpect(jsonPath("$.totalElements").value(1));
+    }
+
+    @Test
+    @DisplayName("GET /api/students/search - Should return 400 when a date is malformed")
+    void search_ShouldReturn400_WhenDateIsMalformed() throws Exception {
+        mockMvc.perform(get("/api/students/search").param("registrationTo", "31/12/2024"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("GET /api/students/suggest - Should return the best matches")
+    void suggest_ShouldReturnMatches() throws Exception {
+        when(studentService.suggest("joao sil", 5)).thenReturn(Arrays.asList(student));
+
+        mockMvc.perform(get("/api/students/suggest").param("q", "joao sil").param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name").value("Joao Silva"));
+    }
+
+    @Test
+    @DisplayName("GET /api/students/suggest - Should return 400 when limit is invalid")
+    void suggest_ShouldReturn400_WhenLimitIsInvalid() throws Exception {
+        when(studentService.suggest("joao sil", 500)).thenThrow(new IllegalArgumentException("limit must be between 1 and 50"));
+
+        mockMvc.perform(get("/api/students/suggest").param("q", "joao sil").param("limit", "500"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("GET /api/students/changes - Should open an event stream resumed after Last-Event-ID")
+    void changes_ShouldResumeAfterLastEventId() throws Exception {
+        when(studentService.changes(7L)).thenReturn(new SseEmitter());
+
+        mockMvc.perform(get("/api/students/changes").header("Last-Event-ID", "7").param("after", "3"))
+                .andExpect(request().asyncStarted());
+
+        verify(studentService).changes(7L);
+    }
+
+    @Test
+    @DisplayName("GET /api/students/changes - Should return 503 when the feed has too many subscribers")
+    void changes_ShouldReturn503_WhenSubscriberLimitIsReached() throws Exception {
+        when(studentService.changes(null)).thenThrow(new SubscriberLimitException("The students change feed already has 200 subscribers"));
+
+        mockMvc.perform(get("/api/students/changes"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "5"));
+    }
+
+    @Test
+    @DisplayName("GET /api/students?ids - Should return the found records and the missing ids")
+    void findAll_ShouldLookUpIds_WhenIdsAreGiven() throws Exception {
+        when(studentService.lookup(List.of(1L, 2L), null))
+                .thenReturn(new LookupResult<>(List.of(student), List.of(2L), List.of()));
+
+        mockMvc.perform(get("/api/students").param("ids", "1,2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].id").value(1))
+                .andExpect(jsonPath("$.missingIds[0]").value(2));
+    }
+
+    @Test
+    @DisplayName("POST /api/students/lookup - Should return 400 when there are too many keys")
+    void lookup_ShouldReturn400_WhenTooManyKeys() throws Exception {
+        when(studentService.lookup(any(), any())).thenThrow(new IllegalArgumentException("At most 10000 ids and CPFs per lookup"));
+
+        mockMvc.perform(post("/api/students/lookup")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\": [1, 2], \"cpfs\": [\"123.456.789-09\"]}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("GET /api/students?fields - Should return only the requested fields")
+    void findAll_ShouldReturnSparseFields_WhenFieldsAreGiven() throws Exception {
+        when(studentService.findPage(0, 10, null, "name")).thenReturn(new PageResponse<>(
+                List.of(Map.of("id", 1L, "name", "Joao Silva")), 0, 10, 1, 1));
+
+        mockMvc.perform(get("/api/students").param("fields", "name").param("page", "0").param("size", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].name").value("Joao Silva"))
+                .andExpect(jsonPath("$.content[0].email").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("GET /api/students/{id}?fields - Should return 400 when a field is unknown")
+    void findById_ShouldReturn400_WhenFieldIsUnknown() throws Exception {
+        when(studentService.findById(1L, "salary")).thenThrow(new IllegalArgumentException("Unknown field 'salary'"));
+
+        mockMvc.perform(get("/api/students/1").param("fields", "salary"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("GET /api/students?cursor - Should return a keyset page")
+    void findAll_ShouldReturnCursorPage_WhenCursorIsGiven() throws Exception {
+        when(studentService.findAfter(eq(""), eq(null))).thenReturn(new CursorPageResponse<>(Arrays.asList(student), 1, "MQ"));
+
+        mockMvc.perform(get("/api/students").param("cursor", ""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.nextCursor").value("MQ"));
+    }
+
+    @Test
+    @DisplayName("GET /api/students?size - Should return 400 when size is invalid")
+    void findAll_ShouldReturn400_WhenPageIsInvalid() throws Exception {
+        when(studentService.findPage(null, 0, null)).thenThrow(new IllegalArgumentException("size must be between 1 and 1000"));
+
+        mockMvc.perform(get("/api/students").param("size", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("GET /api/students/export - Should stream NDJSON")
+    void export_ShouldStreamNdjson() throws Exception {
+        doAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(0);
+            out.write((objectMapper.writeValueAsString(student) + "\n").getBytes(StandardCharsets.UTF_8));
+            return 1L;
+        }).when(studentService).exportNdjson(any());
+
+        MvcResult result = mockMvc.perform(get("/api/students/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(containsString("\"name\":\"Joao Silva\"")));
+    }
+
     @Test
     @DisplayName("GET /api/students/{id} - Should return student")
     void findById_ShouldReturnStudent() throws Exception {
@@ -84,7 +266,7 @@ class StudentControllerTest {
         mockMvc.perform(get("/api/students/1"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.name").value("Joao Silva"))
-                .andExpect(jsonPath("$.cpf").value("12345678900"));
+                .andExpect(jsonPath("$.cpf").value("12345678909"));
     }
 
     @Test
@@ -96,6 +278,92 @@ class StudentControllerTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    @DisplayName("GET /api/students/{id} - Should return 304 when the ETag still matches")
+    void findById_ShouldReturn304_WhenETagMatches() throws Exception {
+        student.setVersion(3L);
+        student.setUpdatedAt(Instant.parse("2025-01-10T12:00:00Z"));
+        when(studentService.findById(1L)).thenReturn(student);
+
+        mockMvc.perform(get("/api/students/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED));
+        mockMvc.perform(get("/api/students/1").header(HttpHeaders.IF_NONE_MATCH, "\"3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    @DisplayName("GET /api/students - Should return 304 when the list did not change")
+    void findAll_ShouldReturn304_WhenListETagMatches() throws Exception {
+        student.setVersion(0L);
+        when(studentService.findAll()).thenReturn(Arrays.asList(student));
+
+        String etag = mockMvc.perform(get("/api/students"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mockMvc.perform(get("/api/students").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        student.setVersion(1L);
+        mockMvc.perform(get("/api/students").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @DisplayName("GET /api/students - Should encode the list as CBOR when the client accepts it")
+    void findAll_ShouldReturnCbor_WhenAccepted() throws Exception {
+        student.setVersion(0L);
+        when(studentService.findAll()).thenReturn(Arrays.asList(student));
+
+        MvcResult result = mockMvc.perform(get("/api/students").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andExpect(header().string(HttpHeaders.ETAG, startsWith("W/")))
+                .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(HttpHeaders.ACCEPT)))
+                .andReturn();
+
+        JsonNode body = new CBORMapper().readTree(result.getResponse().getContentAsByteArray());
+        assertEquals("Joao Silva", body.get(0).get("name").asText());
+    }
+
+    @Test
+    @DisplayName("GET /api/students/{id} - Should give each encoding of a version its own strong ETag")
+    void findById_ShouldTagEachEncoding() throws Exception {
+        student.setVersion(3L);
+        when(studentService.findById(1L)).thenReturn(student);
+
+        mockMvc.perform(get("/api/students/1").accept("application/json, application/cbor"))
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""));
+        mockMvc.perform(get("/api/students/1").accept("*/*;q=0.5, application/cbor"))
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3-cbor\""));
+        mockMvc.perform(get("/api/students/1").accept("application/json;q=0.5, application/x-jackson-smile"))
+                .andExpect(content().contentType("application/x-jackson-smile"))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3-smile\""));
+        mockMvc.perform(get("/api/students/1").accept(MediaType.APPLICATION_CBOR).header(HttpHeaders.IF_NONE_MATCH, "\"3-cbor\""))
+                .andExpect(status().isNotModified());
+        // A JSON client holding the CBOR tag gets the JSON body, not a 304
+        mockMvc.perform(get("/api/students/1").header(HttpHeaders.IF_NONE_MATCH, "\"3-cbor\""))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @DisplayName("GET /api/students/{id} - Should encode the student as Smile when the client accepts it")
+    void findById_ShouldReturnSmile_WhenAccepted() throws Exception {
+        when(studentService.findById(1L)).thenReturn(student);
+
+        MvcResult result = mockMvc.perform(get("/api/students/1").accept("application/x-jackson-smile"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-jackson-smile"))
+                .andReturn();
+
+        JsonNode body = new SmileMapper().readTree(result.getResponse().getContentAsByteArray());
+        assertEquals("Joao Silva", body.get("name").asText());
+    }
+
     @Test
     @DisplayName("POST /api/students - Should create student")
     void create_ShouldCreateStudent() throws Exception {
@@ -120,10 +388,34 @@ class StudentControllerTest {
                 .andExpect(status().isBadRequest());
     }
 
+    @Test
+    @DisplayName("POST /api/students - Should return 400 when CPF is not 11 digits")
+    void create_ShouldReturn400_WhenCpfIsMalformed() throws Exception {
+        studentDTO.setCpf("123.456.789");
+
+        mockMvc.perform(post("/api/students")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(studentDTO)))
+                .andExpect(status().isBadRequest());
+        verify(studentService, never()).create(any(StudentDTO.class));
+    }
+
+    @Test
+    @DisplayName("POST /api/students - Should return 503 when ViaCEP is unavailable")
+    void create_ShouldReturn503_WhenViaCepIsUnavailable() throws Exception {
+        when(studentService.create(any(StudentDTO.class)))
+                .thenThrow(new CepServiceUnavailableException("ViaCEP circuit is open"));
+
+        mockMvc.perform(post("/api/students")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(studentDTO)))
+                .andExpect(status().isServiceUnavailable());
+    }
+
     @Test
     @DisplayName("PUT /api/students/{id} - Should update student")
     void update_ShouldUpdateStudent() throws Exception {
-        when(studentService.update(anyLong(), any(StudentDTO.class))).thenReturn(student);
+        when(studentService.update(anyLong(), any(StudentDTO.class), isNull())).thenReturn(student);
 
         mockMvc.perform(put("/api/students/1")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -132,10 +424,80 @@ class StudentControllerTest {
                 .andExpect(jsonPath("$.name").value("Joao Silva"));
     }
 
+    @Test
+    @DisplayName("PUT /api/students/{id} - Should return 412 when If-Match is stale")
+    void update_ShouldReturn412_WhenIfMatchIsStale() throws Exception {
+        when(studentService.update(eq(1L), any(StudentDTO.class), eq(2L)))
+                .thenThrow(new PreconditionFailedException("Student 1 is at version 3"));
+
+        mockMvc.perform(put("/api/students/1")
+                        .header(HttpHeaders.IF_MATCH, "\"2\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(studentDTO)))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    @DisplayName("PUT /api/students/{id} - Should accept the ETag of a binary encoding in If-Match")
+    void update_ShouldAcceptEncodingTagInIfMatch() throws Exception {
+        when(studentService.update(eq(1L), any(StudentDTO.class), eq(3L))).thenReturn(student);
+
+        mockMvc.perform(put("/api/students/1")
+                        .header(HttpHeaders.IF_MATCH, "\"3-smile\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(studentDTO)))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @DisplayName("PUT /api/students/{id} - Should return 412 when If-Match is a weak tag")
+    void update_ShouldReturn412_WhenIfMatchIsWeak() throws Exception {
+        mockMvc.perform(put("/api/students/1")
+                        .header(HttpHeaders.IF_MATCH, "W/\"2\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(studentDTO)))
+                .andExpect(status().isPreconditionFailed());
+        verify(studentService, never()).update(anyLong(), any(StudentDTO.class), any());
+    }
+
     @Test
     @DisplayName("DELETE /api/students/{id} - Should delete student")
     void delete_ShouldDeleteStudent() throws Exception {
         mockMvc.perform(delete("/api/students/1"))
                 .andExpect(status().isNoContent());
     }
+
+    @Test
+    @DisplayName("POST /api/students/bulk - Should import a JSON array")
+    void bulkCreate_ShouldImportJsonArray() throws Exception {
+        when(studentService.bulkCreate(any())).thenAnswer(invocation -> countRecords(invocation.getArgument(0)));
+
+        mockMvc.perform(post("/api/students/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Arrays.asList(studentDTO, studentDTO))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(2));
+    }
+
+    @Test
+    @DisplayName("POST /api/students/bulk - Should import NDJSON")
+    void bulkCreate_ShouldImportNdjson() throws Exception {
+        when(studentService.bulkCreate(any())).thenAnswer(invocation -> countRecords(invocation.getArgument(0)));
+        String line = objectMapper.writeValueAsString(studentDTO);
+
+        mockMvc.perform(post("/api/students/bulk")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(line + "\n" + line + "\n" + line + "\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(3));
+    }
+
+    private static BulkImportResult countRecords(Iterator<StudentDTO> records) {
+        BulkImportResult result = new BulkImportResult();
+        while (records.hasNext()) {
+            records.next();
+            result.setTotal(result.getTotal() + 1);
+        }
+        return result;
+    }
 }
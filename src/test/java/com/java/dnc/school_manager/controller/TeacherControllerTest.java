@@ -1,9 +1,20 @@
 package com.java.dnc.school_manager.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.java.dnc.school_manager.dto.BulkImportResult;
+import com.java.dnc.school_manager.dto.CursorPageResponse;
+import com.java.dnc.school_manager.dto.LookupResult;
+import com.java.dnc.school_manager.dto.PageResponse;
 import com.java.dnc.school_manager.dto.TeacherDTO;
+import com.java.dnc.school_manager.dto.TeacherSearch;
+import com.java.dnc.school_manager.exception.CepServiceUnavailableException;
 import com.java.dnc.school_manager.exception.DuplicateCpfException;
+import com.java.dnc.school_manager.exception.PreconditionFailedException;
 import com.java.dnc.school_manager.exception.ResourceNotFoundException;
+import com.java.dnc.school_manager.exception.SubscriberLimitException;
 import com.java.dnc.school_manager.model.Address;
 import com.java.dnc.school_manager.model.Teacher;
 import com.java.dnc.school_manager.service.TeacherService;
@@ -12,14 +23,32 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -78,6 +107,159 @@ class TeacherControllerTest {
                 .andExpect(jsonPath("$[0].name").value("Maria Santos"));
     }
 
+    @Test
+    @DisplayName("GET /api/teachers?page&size&sort - Should return a page")
+    void findAll_ShouldReturnPage_WhenPageIsRequested() throws Exception {
+        when(teacherService.findPage(1, 5, "name")).thenReturn(new PageResponse<>(Arrays.asList(teacher), 1, 5, 6, 2));
+
+        mockMvc.perform(get("/api/teachers").param("page", "1").param("size", "5").param("sort", "name"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].name").value("Maria Santos"))
+                .andExpect(jsonPath("$.totalPages").value(2));
+    }
+
+    @Test
+    @DisplayName("GET /api/teachers/search - Should return the filtered page")
+    void search_ShouldReturnPage() throws Exception {
+        when(teacherService.search(any(TeacherSearch.class), eq(0), eq(10), eq("name")))
+                .thenReturn(new PageResponse<>(Arrays.asList(teacher), 0, 10, 1, 1));
+
+        mockMvc.perform(get("/api/teachers/search").param("city", "Sao Paulo").param("uf", "SP").param("subject", "Math")
+                        .param("page", "0").param("size", "10").param("sort", "name"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].name").value("Maria Santos"))
+                .andExpect(jsonPath("$.totalElements").value(1));
+    }
+
+    @Test
+    @DisplayName("GET /api/teachers/search - Should return 400 when a date is malformed")
+    void search_ShouldReturn400_WhenDateIsMalformed() throws Exception {
+        mockMvc.perform(get("/api/teachers/search").param("hiringTo", "31/12/2024"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("GET /api/teachers/suggest - Should return the best matches")
+    void suggest_ShouldReturnMatches() throws Exception {
+        when(teacherService.suggest("maria san", 5)).thenReturn(Arrays.asList(teacher));
+
+        mockMvc.perform(get("/api/teachers/suggest").param("q", "maria san").param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name").value("Maria Santos"));
+    }
+
+    @Test
+    @DisplayName("GET /api/teachers/suggest - Should return 400 when limit is invalid")
+    void suggest_ShouldReturn400_WhenLimitIsInvalid() throws Exception {
+        when(teacherService.suggest("maria san", 500)).thenThrow(new IllegalArgumentException("limit must be between 1 and 50"));
+
+        mockMvc.perform(get("/api/teachers/suggest").param("q", "maria san").param("limit", "500"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("GET /api/teachers/changes - Should open an event stream resumed after Last-Event-ID")
+    void changes_ShouldResumeAfterLastEventId() throws Exception {
+        when(teacherService.changes(7L)).thenReturn(new SseEmitter());
+
+        mockMvc.perform(get("/api/teachers/changes").header("Last-Event-ID", "7").param("after", "3"))
+                .andExpect(request().asyncStarted());
+
+        verify(teacherService).changes(7L);
+    }
+
+    @Test
+    @DisplayName("GET /api/teachers/changes - Should return 503 when the feed has too many subscribers")
+    void changes_ShouldReturn503_WhenSubscriberLimitIsReached() throws Exception {
+        when(teacherService.changes(null)).thenThrow(new SubscriberLimitException("The teachers change feed already has 200 subscribers"));
+
+        mockMvc.perform(get("/api/teachers/changes"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "5"));
+    }
+
+    @Test
+    @DisplayName("GET /api/teachers?ids - Should return the found records and the missing ids")
+    void findAll_ShouldLookUpIds_WhenIdsAreGiven() throws Exception {
+        when(teacherService.lookup(List.of(1L, 2L), null))
+                .thenReturn(new LookupResult<>(List.of(teacher), List.of(2L), List.of()));
+
+        mockMvc.perform(get("/api/teachers").param("ids", "1,2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].id").value(1))
+                .andExpect(jsonPath("$.missingIds[0]").value(2));
+    }
+
+    @Test
+    @DisplayName("POST /api/teachers/lookup - Should return 400 when there are too many keys")
+    void lookup_ShouldReturn400_WhenTooManyKeys() throws Exception {
+        when(teacherService.lookup(any(), any())).thenThrow(new IllegalArgumentException("At most 10000 ids and CPFs per lookup"));
+
+        mockMvc.perform(post("/api/teachers/lookup")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\": [1, 2], \"cpfs\": [\"123.456.789-09\"]}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("GET /api/teachers?fields - Should return only the requested fields")
+    void findAll_ShouldReturnSparseFields_WhenFieldsAreGiven() throws Exception {
+        when(teacherService.findPage(0, 10, null, "name")).thenReturn(new PageResponse<>(
+                List.of(Map.of("id", 1L, "name", "Maria Santos")), 0, 10, 1, 1));
+
+        mockMvc.perform(get("/api/teachers").param("fields", "name").param("page", "0").param("size", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].name").value("Maria Santos"))
+                .andExpect(jsonPath("$.content[0].email").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("GET /api/teachers/{id}?fields - Should return 400 when a field is unknown")
+    void findById_ShouldReturn400_WhenFieldIsUnknown() throws Exception {
+        when(teacherService.findById(1L, "salary")).thenThrow(new IllegalArgumentException("Unknown field 'salary'"));
+
+        mockMvc.perform(get("/api/teachers/1").param("fields", "salary"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("GET /api/teachers?cursor - Should return a keyset page")
+    void findAll_ShouldReturnCursorPage_WhenCursorIsGiven() throws Exception {
+        when(teacherService.findAfter(eq(""), eq(null))).thenReturn(new CursorPageResponse<>(Arrays.asList(teacher), 1, "MQ"));
+
+        mockMvc.perform(get("/api/teachers").param("cursor", ""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.nextCursor").value("MQ"));
+    }
+
+    @Test
+    @DisplayName("GET /api/teachers?size - Should return 400 when size is invalid")
+    void findAll_ShouldReturn400_WhenPageIsInvalid() throws Exception {
+        when(teacherService.findPage(null, 0, null)).thenThrow(new IllegalArgumentException("size must be between 1 and 1000"));
+
+        mockMvc.perform(get("/api/teachers").param("size", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("GET /api/teachers/export - Should stream NDJSON")
+    void export_ShouldStreamNdjson() throws Exception {
+        doAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(0);
+            out.write((objectMapper.writeValueAsString(teacher) + "\n").getBytes(StandardCharsets.UTF_8));
+            return 1L;
+        }).when(teacherService).exportNdjson(any());
+
+        MvcResult result = mockMvc.perform(get("/api/teachers/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(containsString("\"name\":\"Maria Santos\"")));
+    }
+
     @Test
     @DisplayName("GET /api/teachers/{id} - Should return teacher")
     void findById_ShouldReturnTeacher() throws Exception {
@@ -98,6 +280,92 @@ class TeacherControllerTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    @DisplayName("GET /api/teachers/{id} - Should return 304 when the ETag still matches")
+    void findById_ShouldReturn304_WhenETagMatches() throws Exception {
+        teacher.setVersion(3L);
+        teacher.setUpdatedAt(Instant.parse("2025-01-10T12:00:00Z"));
+        when(teacherService.findById(1L)).thenReturn(teacher);
+
+        mockMvc.perform(get("/api/teachers/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED));
+        mockMvc.perform(get("/api/teachers/1").header(HttpHeaders.IF_NONE_MATCH, "\"3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    @DisplayName("GET /api/teachers - Should return 304 when the list did not change")
+    void findAll_ShouldReturn304_WhenListETagMatches() throws Exception {
+        teacher.setVersion(0L);
+        when(teacherService.findAll()).thenReturn(Arrays.asList(teacher));
+
+        String etag = mockMvc.perform(get("/api/teachers"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mockMvc.perform(get("/api/teachers").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        teacher.setVersion(1L);
+        mockMvc.perform(get("/api/teachers").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @DisplayName("GET /api/teachers - Should encode the list as CBOR when the client accepts it")
+    void findAll_ShouldReturnCbor_WhenAccepted() throws Exception {
+        teacher.setVersion(0L);
+        when(teacherService.findAll()).thenReturn(Arrays.asList(teacher));
+
+        MvcResult result = mockMvc.perform(get("/api/teachers").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andExpect(header().string(HttpHeaders.ETAG, startsWith("W/")))
+                .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(HttpHeaders.ACCEPT)))
+                .andReturn();
+
+        JsonNode body = new CBORMapper().readTree(result.getResponse().getContentAsByteArray());
+        assertEquals("Maria Santos", body.get(0).get("name").asText());
+    }
+
+    @Test
+    @DisplayName("GET /api/teachers/{id} - Should give each encoding of a version its own strong ETag")
+    void findById_ShouldTagEachEncoding() throws Exception {
+        teacher.setVersion(3L);
+        when(teacherService.findById(1L)).thenReturn(teacher);
+
+        mockMvc.perform(get("/api/teachers/1").accept("application/json, application/cbor"))
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""));
+        mockMvc.perform(get("/api/teachers/1").accept("*/*;q=0.5, application/cbor"))
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3-cbor\""));
+        mockMvc.perform(get("/api/teachers/1").accept("application/json;q=0.5, application/x-jackson-smile"))
+                .andExpect(content().contentType("application/x-jackson-smile"))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3-smile\""));
+        mockMvc.perform(get("/api/teachers/1").accept(MediaType.APPLICATION_CBOR).header(HttpHeaders.IF_NONE_MATCH, "\"3-cbor\""))
+                .andExpect(status().isNotModified());
+        // A JSON client holding the CBOR tag gets the JSON body, not a 304
+        mockMvc.perform(get("/api/teachers/1").header(HttpHeaders.IF_NONE_MATCH, "\"3-cbor\""))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @DisplayName("GET /api/teachers/{id} - Should encode the teacher as Smile when the client accepts it")
+    void findById_ShouldReturnSmile_WhenAccepted() throws Exception {
+        when(teacherService.findById(1L)).thenReturn(teacher);
+
+        MvcResult result = mockMvc.perform(get("/api/teachers/1").accept("application/x-jackson-smile"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-jackson-smile"))
+                .andReturn();
+
+        JsonNode body = new SmileMapper().readTree(result.getResponse().getContentAsByteArray());
+        assertEquals("Maria Santos", body.get("name").asText());
+    }
+
     @Test
     @DisplayName("POST /api/teachers - Should create teacher")
     void create_ShouldCreateTeacher() throws Exception {
@@ -122,10 +390,22 @@ class TeacherControllerTest {
                 .andExpect(status().isBadRequest());
     }
 
+    @Test
+    @DisplayName("POST /api/teachers - Should return 503 when ViaCEP is unavailable")
+    void create_ShouldReturn503_WhenViaCepIsUnavailable() throws Exception {
+        when(teacherService.create(any(TeacherDTO.class)))
+                .thenThrow(new CepServiceUnavailableException("ViaCEP circuit is open"));
+
+        mockMvc.perform(post("/api/teachers")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(teacherDTO)))
+                .andExpect(status().isServiceUnavailable());
+    }
+
     @Test
     @DisplayName("PUT /api/teachers/{id} - Should update teacher")
     void update_ShouldUpdateTeacher() throws Exception {
-        when(teacherService.update(anyLong(), any(TeacherDTO.class))).thenReturn(teacher);
+        when(teacherService.update(anyLong(), any(TeacherDTO.class), isNull())).thenReturn(teacher);
 
         mockMvc.perform(put("/api/teachers/1")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -134,10 +414,80 @@ class TeacherControllerTest {
                 .andExpect(jsonPath("$.name").value("Maria Santos"));
     }
 
+    @Test
+    @DisplayName("PUT /api/teachers/{id} - Should return 412 when If-Match is stale")
+    void update_ShouldReturn412_WhenIfMatchIsStale() throws Exception {
+        when(teacherService.update(eq(1L), any(TeacherDTO.class), eq(2L)))
+                .thenThrow(new PreconditionFailedException("Teacher 1 is at version 3"));
+
+        mockMvc.perform(put("/api/teachers/1")
+                        .header(HttpHeaders.IF_MATCH, "\"2\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(teacherDTO)))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    @DisplayName("PUT /api/teachers/{id} - Should accept the ETag of a binary encoding in If-Match")
+    void update_ShouldAcceptEncodingTagInIfMatch() throws Exception {
+        when(teacherService.update(eq(1L), any(TeacherDTO.class), eq(3L))).thenReturn(teacher);
+
+        mockMvc.perform(put("/api/teachers/1")
+                        .header(HttpHeaders.IF_MATCH, "\"3-smile\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(teacherDTO)))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @DisplayName("PUT /api/teachers/{id} - Should return 412 when If-Match is a weak tag")
+    void update_ShouldReturn412_WhenIfMatchIsWeak() throws Exception {
+        mockMvc.perform(put("/api/teachers/1")
+                        .header(HttpHeaders.IF_MATCH, "W/\"2\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(teacherDTO)))
+                .andExpect(status().isPreconditionFailed());
+        verify(teacherService, never()).update(anyLong(), any(TeacherDTO.class), any());
+    }
+
     @Test
     @DisplayName("DELETE /api/teachers/{id} - Should delete teacher")
     void delete_ShouldDeleteTeacher() throws Exception {
         mockMvc.perform(delete("/api/teachers/1"))
                 .andExpect(status().isNoContent());
     }
+
+    @Test
+    @DisplayName("POST /api/teachers/bulk - Should import a JSON array")
+    void bulkCreate_ShouldImportJsonArray() throws Exception {
+        when(teacherService.bulkCreate(any())).thenAnswer(invocation -> countRecords(invocation.getArgument(0)));
+
+        mockMvc.perform(post("/api/teachers/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Arrays.asList(teacherDTO, teacherDTO))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(2));
+    }
+
+    @Test
+    @DisplayName("POST /api/teachers/bulk - Should import NDJSON")
+    void bulkCreate_ShouldImportNdjson() throws Exception {
+        when(teacherService.bulkCreate(any())).thenAnswer(invocation -> countRecords(invocation.getArgument(0)));
+        String line = objectMapper.writeValueAsString(teacherDTO);
+
+        mockMvc.perform(post("/api/teachers/bulk")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(line + "\n" + line + "\n" + line + "\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(3));
+    }
+
+    private static BulkImportResult countRecords(Iterator<TeacherDTO> records) {
+        BulkImportResult result = new BulkImportResult();
+        while (records.hasNext()) {
+            records.next();
+            result.setTotal(result.getTotal() + 1);
+        }
+        return result;
+    }
 }
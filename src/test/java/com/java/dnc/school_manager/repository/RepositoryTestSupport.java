@@ -0,0 +1,62 @@
+package com.java.dnc.school_manager.repository;
+
+import com.java.dnc.school_manager.model.Address;
+import com.java.dnc.school_manager.model.AddressStatus;
+import com.java.dnc.school_manager.model.Person;
+import com.java.dnc.school_manager.model.Student;
+import com.java.dnc.school_manager.model.Teacher;
+import org.junit.jupiter.api.AfterEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * Context, cleanup and fixtures of the repository tests. The properties are the ones of
+ * SchoolManagerApplicationTests, so all of them run on the same cached Spring context.
+ */
+@SpringBootTest(properties = {
+        "viacep.store.path=target/test-data/cep-index.dat",
+        "viacep.store.capacity=1024"
+})
+abstract class RepositoryTestSupport {
+
+    @Autowired
+    protected StudentRepository studentRepository;
+
+    @Autowired
+    protected TeacherRepository teacherRepository;
+
+    @AfterEach
+    void deleteAll() {
+        studentRepository.deleteAll();
+        teacherRepository.deleteAll();
+    }
+
+    static Student student(String cpf, String name) {
+        return student(cpf, name, "Sao Paulo", "SP");
+    }
+
+    static Student student(String cpf, String name, String city, String uf) {
+        return fill(new Student(), cpf, name, city, uf);
+    }
+
+    static Teacher teacher(String cpf, String name) {
+        Teacher teacher = fill(new Teacher(), cpf, name, "Sao Paulo", "SP");
+        teacher.setSubject("Mathematics");
+        return teacher;
+    }
+
+    private static <P extends Person> P fill(P person, String cpf, String name, String city, String uf) {
+        Address address = new Address();
+        address.setCep("01310100");
+        address.setStreet("Avenida Paulista");
+        address.setCity(city);
+        address.setUf(uf);
+        address.setAddressStatus(AddressStatus.RESOLVED);
+        person.setName(name);
+        person.setCpf(cpf);
+        person.setEmail(name.toLowerCase().replace(' ', '.') + "@email.com");
+        person.setPhoneNumber("11999999999");
+        person.setAddress(address);
+        return person;
+    }
+}
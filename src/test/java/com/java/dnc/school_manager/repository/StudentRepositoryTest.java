@@ -0,0 +1,196 @@
+package com.java.dnc.school_manager.repository;
+
+import com.java.dnc.school_manager.dto.LookupResult;
+import com.java.dnc.school_manager.dto.PageResponse;
+import com.java.dnc.school_manager.dto.StudentSearch;
+import com.java.dnc.school_manager.model.Student;
+import com.java.dnc.school_manager.service.CpfBloomFilter;
+import com.java.dnc.school_manager.service.StudentService;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StudentRepositoryTest extends RepositoryTestSupport {
+
+    @Autowired
+    private StudentService studentService;
+
+    @Autowired
+    @Qualifier("studentCpfFilter")
+    private CpfBloomFilter studentCpfFilter;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("Should serve reads from the second-level cache and refresh it on update")
+    void findById_ShouldSeeUpdate_WhenEntityIsCached() {
+        Student student = studentRepository.save(student("12345678909", "Joao Silva"));
+        studentRepository.findById(student.getId());
+
+        assertTrue(entityManagerFactory.getCache().contains(Student.class, student.getId()));
+
+        student.setName("Joao Souza");
+        studentRepository.save(student);
+
+        assertEquals("Joao Souza", studentRepository.findById(student.getId()).orElseThrow().getName());
+    }
+
+    @Test
+    @DisplayName("Should evict cached entity and CPF query results on delete")
+    void delete_ShouldInvalidateCaches() {
+        Student student = studentRepository.save(student("98765432100", "Maria Santos"));
+        assertTrue(studentRepository.existsByCpf("98765432100"));
+        assertTrue(studentRepository.findByCpf("98765432100").isPresent());
+
+        studentRepository.delete(student);
+
+        // READ_WRITE leaves a soft lock in the region, so check what readers see rather than contains()
+        assertTrue(studentRepository.findById(student.getId()).isEmpty());
+        assertFalse(studentRepository.existsByCpf("98765432100"));
+        assertTrue(studentRepository.findByCpf("98765432100").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should store CPFs as numbers and read them back with leading zeros")
+    void cpf_ShouldRoundTripThroughNumericColumn() {
+        studentRepository.save(student("01234567890", "Ana Souza"));
+
+        assertEquals("BIGINT", jdbcTemplate.queryForObject(
+                "select data_type from information_schema.columns where table_name = 'STUDENTS' and column_name = 'CPF'",
+                String.class));
+        assertEquals(1234567890L, jdbcTemplate.queryForObject("select cpf from students", Long.class));
+        assertEquals("01234567890", studentRepository.findByCpf("01234567890").orElseThrow().getCpf());
+        assertEquals(List.of("01234567890"), studentRepository.findExistingCpfs(Set.of("01234567890", "12345678909")));
+    }
+
+    @Test
+    @DisplayName("Should bump the version on update and reject writes from a stale copy")
+    void save_ShouldRejectStaleCopy_WhenVersionChanged() {
+        Student student = studentRepository.save(student("11144477735", "Pedro Lima"));
+        Student stale = studentRepository.findById(student.getId()).orElseThrow();
+        Instant created = student.getUpdatedAt();
+
+        student.setName("Pedro Souza");
+        Student updated = studentRepository.save(student);
+
+        assertEquals(0L, stale.getVersion());
+        assertEquals(1L, updated.getVersion());
+        assertFalse(updated.getUpdatedAt().isBefore(created));
+        stale.setName("Pedro Alves");
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> studentRepository.save(stale));
+    }
+
+    @Test
+    @DisplayName("Should resolve ids and CPFs in one lookup and report the misses")
+    void lookup_ShouldReturnFoundAndMissing() {
+        List<Student> saved = seedStudents();
+        // Rows saved straight through the repository, so register them as the service would
+        saved.forEach(student -> studentCpfFilter.put(student.getCpf()));
+        Long ana = saved.get(0).getId();
+
+        LookupResult<Student> result = studentService.lookup(List.of(ana, -1L, ana), List.of("333.333.334-14", "111.111.112-00", "52998224725"));
+
+        assertEquals(List.of("Ana", "Carla"), result.getContent().stream().map(Student::getName).toList());
+        assertEquals(List.of(-1L), result.getMissingIds());
+        assertEquals(List.of("52998224725"), result.getMissingCpfs());
+    }
+
+    @Test
+    @DisplayName("Should return only the requested fields, nested under address")
+    void fields_ShouldSelectOnlyRequestedColumns() {
+        seedStudents();
+        StudentSearch filter = new StudentSearch();
+        filter.setUf("sp");
+
+        PageResponse<Map<String, Object>> page = studentService.search(filter, 0, 2, "name,desc", "name,address.city");
+
+        assertEquals(3, page.getTotalElements());
+        assertEquals(List.of("id", "name", "address"), List.copyOf(page.getContent().get(0).keySet()));
+        assertEquals("Carla", page.getContent().get(0).get("name"));
+        assertEquals(Map.of("city", "Campinas"), page.getContent().get(0).get("address"));
+
+        Long id = (Long) page.getContent().get(0).get("id");
+        assertEquals(Map.of("id", id, "cpf", "33333333414"), studentService.findById(id, "cpf"));
+        assertThrows(IllegalArgumentException.class, () -> studentService.findAll("name,password"));
+    }
+
+    @Test
+    @DisplayName("Should reject a fields= page whose offset does not fit the query")
+    void fields_ShouldRejectPage_WhenOffsetOverflows() {
+        assertThrows(IllegalArgumentException.class, () -> studentService.findPage(Integer.MAX_VALUE, 2, null, "name"));
+    }
+
+    @Test
+    @DisplayName("Should combine address and date range filters")
+    void search_ShouldApplyEveryFilter() {
+        seedStudents();
+        StudentSearch filter = new StudentSearch();
+        filter.setCity("Sao Paulo");
+        filter.setUf("sp");
+        filter.setRegistrationFrom(LocalDate.of(2024, 1, 1));
+        filter.setRegistrationTo(LocalDate.of(2024, 6, 30));
+
+        PageResponse<Student> page = studentService.search(filter, null, null, "name");
+
+        assertEquals(1, page.getTotalElements());
+        assertEquals("Ana", page.getContent().get(0).getName());
+    }
+
+    @Test
+    @DisplayName("Should return every student when no filter is given")
+    void search_ShouldReturnAll_WhenFilterIsEmpty() {
+        seedStudents();
+
+        PageResponse<Student> page = studentService.search(new StudentSearch(), 0, 3, null);
+
+        assertEquals(4, page.getTotalElements());
+        assertEquals(3, page.getContent().size());
+    }
+
+    @Test
+    @DisplayName("Should look up search filters through indexes instead of scanning the table")
+    void search_ShouldUseIndexes() {
+        assertTrue(plan("select * from students where city = 'Sao Paulo' and neighborhood = 'Centro'")
+                .contains("IDX_STUDENTS_CITY_NEIGHBORHOOD"));
+        assertTrue(plan("select * from students where uf = 'SP'").contains("IDX_STUDENTS_UF_CITY"));
+        assertTrue(plan("select * from students where neighborhood = 'Centro'").contains("IDX_STUDENTS_NEIGHBORHOOD"));
+        assertTrue(plan("select * from students where registration_date between date '2024-01-01' and date '2024-06-30'")
+                .contains("IDX_STUDENTS_REGISTRATION_DATE"));
+    }
+
+    private String plan(String sql) {
+        return jdbcTemplate.queryForObject("explain " + sql, String.class);
+    }
+
+    // Ana, Bruno and Carla in SP (Carla in Campinas), Davi in RJ
+    private List<Student> seedStudents() {
+        return studentRepository.saveAll(List.of(
+                student("11111111200", "Ana", "Sao Paulo", "SP", "Bela Vista", LocalDate.of(2024, 2, 1)),
+                student("22222222303", "Bruno", "Sao Paulo", "SP", "Pinheiros", LocalDate.of(2024, 8, 1)),
+                student("33333333414", "Carla", "Campinas", "SP", "Centro", LocalDate.of(2024, 3, 1)),
+                student("44444444525", "Davi", "Rio de Janeiro", "RJ", "Centro", LocalDate.of(2024, 3, 1))));
+    }
+
+    private static Student student(String cpf, String name, String city, String uf, String neighborhood, LocalDate registrationDate) {
+        Student student = student(cpf, name, city, uf);
+        student.getAddress().setNeighborhood(neighborhood);
+        student.setRegistrationDate(registrationDate);
+        return student;
+    }
+}
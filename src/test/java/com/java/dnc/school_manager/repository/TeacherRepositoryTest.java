@@ -0,0 +1,80 @@
+package com.java.dnc.school_manager.repository;
+
+import com.java.dnc.school_manager.dto.LookupResult;
+import com.java.dnc.school_manager.model.Teacher;
+import com.java.dnc.school_manager.service.CpfBloomFilter;
+import com.java.dnc.school_manager.service.TeacherService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TeacherRepositoryTest extends RepositoryTestSupport {
+
+    @Autowired
+    private TeacherService teacherService;
+
+    @Autowired
+    @Qualifier("teacherCpfFilter")
+    private CpfBloomFilter teacherCpfFilter;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("Should store CPFs as numbers and read them back with leading zeros")
+    void cpf_ShouldRoundTripThroughNumericColumn() {
+        teacherRepository.save(teacher("01234567890", "Marta Souza"));
+
+        assertEquals("BIGINT", jdbcTemplate.queryForObject(
+                "select data_type from information_schema.columns where table_name = 'TEACHERS' and column_name = 'CPF'",
+                String.class));
+        assertEquals(1234567890L, jdbcTemplate.queryForObject("select cpf from teachers", Long.class));
+        assertEquals("01234567890", teacherRepository.findByCpf("01234567890").orElseThrow().getCpf());
+        assertTrue(teacherRepository.existsByCpf("01234567890"));
+        assertEquals(List.of("01234567890"), teacherRepository.findExistingCpfs(Set.of("01234567890", "12345678909")));
+    }
+
+    @Test
+    @DisplayName("Should bump the version on update and reject writes from a stale copy")
+    void save_ShouldRejectStaleCopy_WhenVersionChanged() {
+        Teacher teacher = teacherRepository.save(teacher("11144477735", "Marta Lima"));
+        Teacher stale = teacherRepository.findById(teacher.getId()).orElseThrow();
+        Instant created = teacher.getUpdatedAt();
+
+        teacher.setSubject("Physics");
+        Teacher updated = teacherRepository.save(teacher);
+
+        assertEquals(0L, stale.getVersion());
+        assertEquals(1L, updated.getVersion());
+        assertFalse(updated.getUpdatedAt().isBefore(created));
+        stale.setSubject("Chemistry");
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> teacherRepository.save(stale));
+    }
+
+    @Test
+    @DisplayName("Should resolve ids and CPFs in one lookup and report the misses")
+    void lookup_ShouldReturnFoundAndMissing() {
+        List<Teacher> saved = teacherRepository.saveAll(List.of(
+                teacher("11111111200", "Ana"),
+                teacher("22222222303", "Bruno"),
+                teacher("33333333414", "Carla")));
+        // Rows saved straight through the repository, so register them as the service would
+        saved.forEach(teacher -> teacherCpfFilter.put(teacher.getCpf()));
+        Long ana = saved.get(0).getId();
+
+        LookupResult<Teacher> result = teacherService.lookup(List.of(ana, -1L, ana), List.of("333.333.334-14", "111.111.112-00", "52998224725"));
+
+        assertEquals(List.of("Ana", "Carla"), result.getContent().stream().map(Teacher::getName).toList());
+        assertEquals(List.of(-1L), result.getMissingIds());
+        assertEquals(List.of("52998224725"), result.getMissingCpfs());
+    }
+}
@@ -0,0 +1,164 @@
+package com.java.dnc.school_manager.service;
+
+import com.java.dnc.school_manager.dto.ChangeEvent;
+import com.java.dnc.school_manager.dto.EnrichmentStatus;
+import com.java.dnc.school_manager.dto.ViaCepResponse;
+import com.java.dnc.school_manager.exception.CepServiceUnavailableException;
+import com.java.dnc.school_manager.model.Address;
+import com.java.dnc.school_manager.model.AddressStatus;
+import com.java.dnc.school_manager.model.Student;
+import com.java.dnc.school_manager.repository.StudentRepository;
+import com.java.dnc.school_manager.repository.TeacherRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AddressEnrichmentServiceTest {
+
+    @Mock
+    private StudentRepository studentRepository;
+
+    @Mock
+    private TeacherRepository teacherRepository;
+
+    @Mock
+    private ViaCepService viaCepService;
+
+    @Mock
+    private ChangeFeed studentChangeFeed;
+
+    @Mock
+    private ChangeFeed teacherChangeFeed;
+
+    private AddressEnrichmentService enrichmentService;
+
+    @BeforeEach
+    void setUp() {
+        enrichmentService = new AddressEnrichmentService(studentRepository, teacherRepository, viaCepService,
+                studentChangeFeed, teacherChangeFeed, 10, true);
+        lenient().when(teacherRepository.findByAddressAddressStatusAndIdGreaterThanOrderByIdAsc(eq(AddressStatus.PENDING), eq(0L), any(Limit.class)))
+                .thenReturn(List.of());
+    }
+
+    @Test
+    @DisplayName("Should resolve pending addresses with one lookup per distinct CEP")
+    void enrichPending_ShouldResolveAddresses_WhenCepsAreValid() {
+        Student first = pendingStudent(1L, "01310100", null);
+        Student second = pendingStudent(2L, "01310100", "Rua Informada");
+        when(studentRepository.findByAddressAddressStatusAndIdGreaterThanOrderByIdAsc(eq(AddressStatus.PENDING), eq(0L), any(Limit.class)))
+                .thenReturn(List.of(first, second));
+        when(viaCepService.fetchAddress("01310100")).thenReturn(viaCep("Avenida Paulista", null));
+        when(studentRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        enrichmentService.enrichPending();
+
+        verify(viaCepService, times(1)).fetchAddress("01310100");
+        verify(studentRepository, times(1)).saveAll(List.of(first, second));
+        verify(studentChangeFeed).publish(ChangeEvent.Action.UPDATED, first);
+        verify(studentChangeFeed).publish(ChangeEvent.Action.UPDATED, second);
+        assertEquals(AddressStatus.RESOLVED, first.getAddress().getAddressStatus());
+        assertEquals("Avenida Paulista", first.getAddress().getStreet());
+        assertEquals("Sao Paulo", first.getAddress().getCity());
+        assertEquals("Rua Informada", second.getAddress().getStreet());
+    }
+
+    @Test
+    @DisplayName("Should mark addresses whose CEP does not exist as invalid")
+    void enrichPending_ShouldMarkInvalid_WhenViaCepReturnsError() {
+        Student student = pendingStudent(1L, "99999999", null);
+        when(studentRepository.findByAddressAddressStatusAndIdGreaterThanOrderByIdAsc(eq(AddressStatus.PENDING), eq(0L), any(Limit.class)))
+                .thenReturn(List.of(student));
+        when(viaCepService.fetchAddress("99999999")).thenReturn(viaCep(null, "true"));
+
+        enrichmentService.enrichPending();
+
+        assertEquals(AddressStatus.INVALID, student.getAddress().getAddressStatus());
+        assertEquals(1, enrichmentService.getStatus().getInvalidTotal());
+    }
+
+    @Test
+    @DisplayName("Should leave rows pending when ViaCEP is unavailable")
+    void enrichPending_ShouldKeepPending_WhenViaCepIsUnavailable() {
+        Student student = pendingStudent(1L, "01310100", null);
+        when(studentRepository.findByAddressAddressStatusAndIdGreaterThanOrderByIdAsc(eq(AddressStatus.PENDING), eq(0L), any(Limit.class)))
+                .thenReturn(List.of(student));
+        when(viaCepService.fetchAddress("01310100")).thenThrow(new CepServiceUnavailableException("ViaCEP circuit is open"));
+
+        enrichmentService.enrichPending();
+
+        assertEquals(AddressStatus.PENDING, student.getAddress().getAddressStatus());
+        verify(studentRepository, never()).saveAll(anyList());
+        assertEquals(1, enrichmentService.getStatus().getDeferredTotal());
+    }
+
+    @Test
+    @DisplayName("Should move past rows left pending to the rest of the backlog in the same run")
+    void enrichPending_ShouldReachNewerRows_WhenOlderRowsStayPending() {
+        AddressEnrichmentService smallBatches = new AddressEnrichmentService(studentRepository, teacherRepository,
+                viaCepService, studentChangeFeed, teacherChangeFeed, 2, true);
+        Student stuck = pendingStudent(1L, "01310100", null);
+        Student alsoStuck = pendingStudent(2L, "01310100", null);
+        Student newer = pendingStudent(3L, "04538133", null);
+        when(studentRepository.findByAddressAddressStatusAndIdGreaterThanOrderByIdAsc(eq(AddressStatus.PENDING), eq(0L), any(Limit.class)))
+                .thenReturn(List.of(stuck, alsoStuck));
+        when(studentRepository.findByAddressAddressStatusAndIdGreaterThanOrderByIdAsc(eq(AddressStatus.PENDING), eq(2L), any(Limit.class)))
+                .thenReturn(List.of(newer));
+        when(viaCepService.fetchAddress("01310100")).thenThrow(new CepServiceUnavailableException("ViaCEP timed out"));
+        when(viaCepService.fetchAddress("04538133")).thenReturn(viaCep("Rua Leopoldo Couto de Magalhaes Junior", null));
+        when(studentRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        smallBatches.enrichPending();
+
+        assertEquals(AddressStatus.PENDING, stuck.getAddress().getAddressStatus());
+        assertEquals(AddressStatus.RESOLVED, newer.getAddress().getAddressStatus());
+        verify(studentRepository, times(1)).saveAll(List.of(newer));
+        assertEquals(2, smallBatches.getStatus().getDeferredTotal());
+    }
+
+    @Test
+    @DisplayName("Should report the pending backlog")
+    void getStatus_ShouldReportBacklog() {
+        when(studentRepository.countByAddressAddressStatus(AddressStatus.PENDING)).thenReturn(7L);
+        when(teacherRepository.countByAddressAddressStatus(AddressStatus.PENDING)).thenReturn(3L);
+
+        EnrichmentStatus status = enrichmentService.getStatus();
+
+        assertTrue(status.isAsyncEnabled());
+        assertEquals(7, status.getPendingStudents());
+        assertEquals(3, status.getPendingTeachers());
+    }
+
+    private Student pendingStudent(Long id, String cep, String street) {
+        Address address = new Address();
+        address.setCep(cep);
+        address.setStreet(street);
+        address.setAddressStatus(AddressStatus.PENDING);
+        Student student = new Student();
+        student.setId(id);
+        student.setAddress(address);
+        return student;
+    }
+
+    private ViaCepResponse viaCep(String street, String error) {
+        ViaCepResponse response = new ViaCepResponse();
+        response.setStreet(street);
+        response.setCity("Sao Paulo");
+        response.setUf("SP");
+        response.setError(error);
+        return response;
+    }
+}
@@ -0,0 +1,141 @@
+package com.java.dnc.school_manager.service;
+
+import com.java.dnc.school_manager.dto.ViaCepResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CepAddressStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    private ViaCepResponse viaCepResponse;
+
+    @BeforeEach
+    void setUp() {
+        viaCepResponse = new ViaCepResponse();
+        viaCepResponse.setCep("01310-100");
+        viaCepResponse.setStreet("Avenida Paulista");
+        viaCepResponse.setComplement("de 612 a 1510 - lado par");
+        viaCepResponse.setNeighborhood("Bela Vista");
+        viaCepResponse.setCity("São Paulo");
+        viaCepResponse.setUf("SP");
+    }
+
+    @Test
+    @DisplayName("Should return stored address by CEP")
+    void get_ShouldReturnAddress_WhenCepIsStored() throws Exception {
+        CepAddressStore store = new CepAddressStore(true, tempDir.resolve("cep.dat").toString(), 64);
+
+        assertTrue(store.put("01310100", viaCepResponse));
+        ViaCepResponse result = store.get("01310100");
+
+        assertEquals("01310-100", result.getCep());
+        assertEquals("Avenida Paulista", result.getStreet());
+        assertEquals("São Paulo", result.getCity());
+        assertEquals("SP", result.getUf());
+        assertNull(store.get("04538133"));
+        store.close();
+    }
+
+    @Test
+    @DisplayName("Should keep addresses after the store is reopened")
+    void get_ShouldReturnAddress_AfterReopen() throws Exception {
+        String path = tempDir.resolve("cep.dat").toString();
+        CepAddressStore store = new CepAddressStore(true, path, 64);
+        store.put("01310100", viaCepResponse);
+        store.close();
+
+        CepAddressStore reopened = new CepAddressStore(true, path, 64);
+
+        assertEquals(1, reopened.getStats().getSize());
+        assertEquals("Bela Vista", reopened.get("01310100").getNeighborhood());
+        reopened.close();
+    }
+
+    @Test
+    @DisplayName("Should truncate long fields without breaking characters")
+    void put_ShouldTruncateLongFields() throws Exception {
+        CepAddressStore store = new CepAddressStore(true, tempDir.resolve("cep.dat").toString(), 64);
+        viaCepResponse.setCity("São Paulo".repeat(10));
+
+        store.put("01310100", viaCepResponse);
+        String city = store.get("01310100").getCity();
+
+        assertTrue(city.startsWith("São Paulo"));
+        assertFalse(city.contains("�"));
+        store.close();
+    }
+
+    @Test
+    @DisplayName("Should ignore malformed CEPs and invalid responses")
+    void put_ShouldRejectInvalidInput() throws Exception {
+        CepAddressStore store = new CepAddressStore(true, tempDir.resolve("cep.dat").toString(), 64);
+        ViaCepResponse invalidCep = new ViaCepResponse();
+        invalidCep.setError("true");
+
+        assertFalse(store.put("0131", viaCepResponse));
+        assertFalse(store.put("99999999", invalidCep));
+        assertNull(store.get("abcdefgh"));
+        store.close();
+    }
+
+    @Test
+    @DisplayName("Should never return a mix of two writes while a CEP is being overwritten")
+    void get_ShouldReturnConsistentAddress_WhileCepIsOverwritten() throws Exception {
+        CepAddressStore store = new CepAddressStore(true, tempDir.resolve("cep.dat").toString(), 64);
+        ViaCepResponse other = new ViaCepResponse();
+        other.setStreet("Rua Augusta");
+        other.setNeighborhood("Consolação");
+        other.setCity("São Paulo");
+        other.setUf("SP");
+        store.put("01310100", viaCepResponse);
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread writer = Thread.ofPlatform().start(() -> {
+            for (int i = 0; running.get(); i++) {
+                store.put("01310100", i % 2 == 0 ? other : viaCepResponse);
+            }
+        });
+        try {
+            for (int i = 0; i < 200_000; i++) {
+                ViaCepResponse read = store.get("01310100");
+                String expectedNeighborhood = read.getStreet().equals("Rua Augusta") ? "Consolação" : "Bela Vista";
+                assertEquals(expectedNeighborhood, read.getNeighborhood(), "torn read of " + read.getStreet());
+            }
+        } finally {
+            running.set(false);
+            writer.join();
+        }
+        store.close();
+    }
+
+    @Test
+    @DisplayName("Should start empty when the file has an older record layout")
+    void open_ShouldResetStore_WhenFileHasOlderVersion() throws Exception {
+        Path path = tempDir.resolve("cep.dat");
+        CepAddressStore store = new CepAddressStore(true, path.toString(), 64);
+        store.put("01310100", viaCepResponse);
+        store.close();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(Integer.BYTES).putInt(0, 1), 4);
+        }
+
+        CepAddressStore reopened = new CepAddressStore(true, path.toString(), 64);
+
+        assertEquals(0, reopened.getStats().getSize());
+        assertNull(reopened.get("01310100"));
+        assertTrue(reopened.put("01310100", viaCepResponse));
+        reopened.close();
+    }
+}
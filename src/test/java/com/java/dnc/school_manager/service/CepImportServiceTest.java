@@ -0,0 +1,91 @@
+package com.java.dnc.school_manager.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.java.dnc.school_manager.dto.CepImportResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CepImportServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private CepAddressStore cepAddressStore;
+    private ViaCepService viaCepService;
+    private CepImportService cepImportService;
+
+    @BeforeEach
+    void setUp() {
+        cepAddressStore = new CepAddressStore(true, tempDir.resolve("cep.dat").toString(), 64);
+        viaCepService = mock(ViaCepService.class);
+        cepImportService = new CepImportService(cepAddressStore, viaCepService, new ObjectMapper());
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        cepAddressStore.close();
+    }
+
+    @Test
+    @DisplayName("Should import CSV rows with header and quoted fields")
+    void importDataset_ShouldImportCsv() throws Exception {
+        String csv = """
+                cep;logradouro;complemento;bairro;localidade;uf
+                01310-100;Avenida Paulista;"de 612 a 1510; lado par";Bela Vista;Sao Paulo;SP
+                04538133;Rua Funchal;;Vila Olimpia;Sao Paulo;SP
+                123;Invalida;;;;
+                """;
+
+        CepImportResult result = cepImportService.importDataset(stream(csv.getBytes(StandardCharsets.UTF_8)), "csv");
+
+        assertEquals(3, result.getRowsRead());
+        assertEquals(2, result.getRowsImported());
+        assertEquals(1, result.getRowsSkipped());
+        assertEquals("de 612 a 1510; lado par", cepAddressStore.get("01310100").getComplement());
+        assertEquals("Vila Olimpia", cepAddressStore.get("04538133").getNeighborhood());
+        verify(viaCepService, times(1)).clearCache();
+    }
+
+    @Test
+    @DisplayName("Should import gzipped JSON lines in ViaCEP format")
+    void importDataset_ShouldImportGzippedJsonLines() throws Exception {
+        String jsonl = """
+                {"cep":"01310-100","logradouro":"Avenida Paulista","bairro":"Bela Vista","localidade":"Sao Paulo","uf":"SP"}
+                {"cep":"99999-999","erro":"true"}
+                """;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            gzip.write(jsonl.getBytes(StandardCharsets.UTF_8));
+        }
+
+        CepImportResult result = cepImportService.importDataset(stream(bytes.toByteArray()), null);
+
+        assertEquals("jsonl", result.getFormat());
+        assertEquals(2, result.getRowsRead());
+        assertEquals(1, result.getRowsImported());
+        assertEquals("Avenida Paulista", cepAddressStore.get("01310100").getStreet());
+    }
+
+    @Test
+    @DisplayName("Should reject unknown dataset formats")
+    void importDataset_ShouldThrowException_WhenFormatIsUnknown() {
+        assertThrows(IllegalArgumentException.class,
+                () -> cepImportService.importDataset(stream(new byte[0]), "xml"));
+    }
+
+    private static ByteArrayInputStream stream(byte[] bytes) {
+        return new ByteArrayInputStream(bytes);
+    }
+}
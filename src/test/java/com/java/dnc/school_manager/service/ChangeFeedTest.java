@@ -0,0 +1,165 @@
+package com.java.dnc.school_manager.service;
+
+import com.java.dnc.school_manager.dto.ChangeEvent;
+import com.java.dnc.school_manager.exception.SubscriberLimitException;
+import com.java.dnc.school_manager.model.Person;
+import com.java.dnc.school_manager.model.Student;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChangeFeedTest {
+
+    @Test
+    @DisplayName("Should replay the events after Last-Event-ID, then stream new ones")
+    void subscribe_ShouldReplayMissedEvents() throws Exception {
+        ChangeFeed feed = feed(100, 10, 10);
+        RecordingEmitter live = new RecordingEmitter();
+        feed.subscribe(null, live);
+        feed.publish(ChangeEvent.Action.CREATED, person(1L));
+        feed.publish(ChangeEvent.Action.UPDATED, person(1L));
+        feed.publish(ChangeEvent.Action.DELETED, person(1L));
+        long first = live.next().id();
+        long second = live.next().id();
+        long third = live.next().id();
+
+        RecordingEmitter resumed = new RecordingEmitter();
+        feed.subscribe(first, resumed);
+        feed.publish(ChangeEvent.Action.CREATED, person(2L));
+
+        assertEquals(new Received("updated", second), resumed.next());
+        assertEquals(new Received("deleted", third), resumed.next());
+        assertEquals(new Received("created", third + 1), resumed.next());
+    }
+
+    @Test
+    @DisplayName("Should send a reset when the missed events are no longer kept")
+    void subscribe_ShouldReset_WhenLastEventIdIsTooOld() throws Exception {
+        ChangeFeed feed = feed(2, 10, 10);
+        RecordingEmitter live = new RecordingEmitter();
+        feed.subscribe(null, live);
+        for (long id = 1; id <= 4; id++) {
+            feed.publish(ChangeEvent.Action.CREATED, person(id));
+        }
+        long first = live.next().id();
+        long last = first + 3;
+
+        RecordingEmitter resumed = new RecordingEmitter();
+        feed.subscribe(first, resumed);
+        feed.publish(ChangeEvent.Action.CREATED, person(5L));
+
+        assertEquals(new Received(ChangeFeed.RESET, last), resumed.next());
+        assertEquals(new Received("created", last + 1), resumed.next());
+
+        // An id from before a restart is older than any kept event
+        RecordingEmitter restarted = new RecordingEmitter();
+        feed.subscribe(42L, restarted);
+        assertEquals(ChangeFeed.RESET, restarted.next().event());
+    }
+
+    @Test
+    @DisplayName("Should drop a slow subscriber without blocking publish, after sending what it had buffered")
+    void publish_ShouldDropSlowSubscriber() throws Exception {
+        ChangeFeed feed = feed(100, 2, 10);
+        RecordingEmitter slow = new RecordingEmitter();
+        slow.gate = new CountDownLatch(1);
+        feed.subscribe(null, slow);
+
+        for (long id = 1; id <= 4; id++) {
+            feed.publish(ChangeEvent.Action.CREATED, person(id));
+        }
+
+        assertEquals(1, feed.getDropped());
+        assertEquals(0, feed.subscriberCount());
+        slow.gate.countDown();
+        List<Received> received = new ArrayList<>();
+        Received next;
+        do {
+            next = slow.next();
+            received.add(next);
+        } while (!next.event().equals(ChangeFeed.OVERFLOW));
+        assertTrue(received.size() >= 3, "buffered events are delivered before the overflow");
+        for (int i = 1; i < received.size() - 1; i++) {
+            assertEquals(received.get(i - 1).id() + 1, received.get(i).id());
+        }
+        assertTrue(slow.completed.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("Should refuse subscribers over the limit")
+    void subscribe_ShouldThrow_WhenLimitIsReached() {
+        ChangeFeed feed = feed(100, 10, 1);
+        feed.subscribe(null, new RecordingEmitter());
+
+        assertThrows(SubscriberLimitException.class, () -> feed.subscribe(null, new RecordingEmitter()));
+    }
+
+    private static ChangeFeed feed(int history, int buffer, int maxSubscribers) {
+        return new ChangeFeed("test", history, buffer, maxSubscribers, Duration.ofMinutes(1), Duration.ofMinutes(1));
+    }
+
+    private static Person person(Long id) {
+        Student student = new Student();
+        student.setId(id);
+        student.setVersion(0L);
+        return student;
+    }
+
+    // Event name and id of one SSE message
+    private record Received(String event, long id) {
+    }
+
+    // Keeps what would be written to the connection; sends block while the gate is closed
+    private static class RecordingEmitter extends SseEmitter {
+
+        private static final Pattern EVENT = Pattern.compile("event:(\\w+)");
+        private static final Pattern ID = Pattern.compile("(?:id|data):(\\d+)");
+
+        private final BlockingQueue<Received> sent = new LinkedBlockingQueue<>();
+        private final CountDownLatch completed = new CountDownLatch(1);
+        private volatile CountDownLatch gate;
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            CountDownLatch current = gate;
+            if (current != null) {
+                try {
+                    current.await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            StringBuilder text = new StringBuilder();
+            builder.build().forEach(part -> text.append(part.getData() instanceof ChangeEvent event ? event.getId() : part.getData()));
+            Matcher event = EVENT.matcher(text);
+            Matcher id = ID.matcher(text);
+            if (event.find() && id.find()) {
+                sent.add(new Received(event.group(1), Long.parseLong(id.group(1))));
+            }
+        }
+
+        @Override
+        public void complete() {
+            completed.countDown();
+        }
+
+        Received next() throws InterruptedException {
+            Received received = sent.poll(5, TimeUnit.SECONDS);
+            assertNotNull(received, "no event sent");
+            return received;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.java.dnc.school_manager.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CircuitBreakerTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private final CircuitBreaker circuitBreaker = new CircuitBreaker(2, Duration.ofSeconds(10), clock::get);
+
+    @Test
+    @DisplayName("Should open after consecutive failures")
+    void onFailure_ShouldOpenCircuit_WhenThresholdIsReached() {
+        circuitBreaker.onFailure();
+        assertTrue(circuitBreaker.allowRequest());
+
+        circuitBreaker.onFailure();
+
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertFalse(circuitBreaker.allowRequest());
+    }
+
+    @Test
+    @DisplayName("Should allow a single trial call after the open period")
+    void allowRequest_ShouldAllowOneTrial_WhenOpenPeriodEnds() {
+        circuitBreaker.onFailure();
+        circuitBreaker.onFailure();
+        clock.addAndGet(Duration.ofSeconds(10).toNanos());
+
+        assertTrue(circuitBreaker.allowRequest());
+        assertFalse(circuitBreaker.allowRequest());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+
+        circuitBreaker.onSuccess();
+
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertTrue(circuitBreaker.allowRequest());
+    }
+
+    @Test
+    @DisplayName("Should reopen when the trial call fails")
+    void onFailure_ShouldReopen_WhenTrialFails() {
+        circuitBreaker.onFailure();
+        circuitBreaker.onFailure();
+        clock.addAndGet(Duration.ofSeconds(10).toNanos());
+        circuitBreaker.allowRequest();
+
+        circuitBreaker.onFailure();
+
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertFalse(circuitBreaker.allowRequest());
+    }
+}
@@ -0,0 +1,62 @@
+package com.java.dnc.school_manager.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CpfBloomFilterTest {
+
+    @Test
+    @DisplayName("Should answer maybe for every CPF until the first rebuild")
+    void mightContain_ShouldReturnTrue_BeforeRebuild() {
+        CpfBloomFilter filter = new CpfBloomFilter(1000, 0.01);
+
+        assertFalse(filter.isReady());
+        assertTrue(filter.mightContain("12345678909"));
+    }
+
+    @Test
+    @DisplayName("Should never reject a CPF that was loaded or added")
+    void mightContain_ShouldHaveNoFalseNegatives() {
+        CpfBloomFilter filter = new CpfBloomFilter(10_000, 0.01);
+        filter.rebuild(10_000, sink -> LongStream.range(0, 10_000).forEach(i -> sink.accept(cpf(i))));
+        filter.put("98765432100");
+
+        for (long i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain(cpf(i)));
+        }
+        assertTrue(filter.mightContain("98765432100"));
+        assertTrue(filter.mightContain("987.654.321-00"));
+    }
+
+    @Test
+    @DisplayName("Should keep false positives near the configured rate")
+    void mightContain_ShouldRejectMostUnknownCpfs() {
+        CpfBloomFilter filter = new CpfBloomFilter(10_000, 0.01);
+        filter.rebuild(10_000, sink -> LongStream.range(0, 10_000).forEach(i -> sink.accept(cpf(i))));
+
+        long falsePositives = LongStream.range(1_000_000, 1_100_000).filter(i -> filter.mightContain(cpf(i))).count();
+
+        assertTrue(falsePositives < 2_000, "false positives: " + falsePositives);
+    }
+
+    @Test
+    @DisplayName("Should report removed CPFs as stale until the next rebuild")
+    void staleRatio_ShouldCountRemovals() {
+        CpfBloomFilter filter = new CpfBloomFilter(100, 0.01);
+        filter.rebuild(4, sink -> LongStream.range(0, 4).forEach(i -> sink.accept(cpf(i))));
+
+        filter.remove(cpf(0));
+
+        assertEquals(0.25, filter.staleRatio());
+        filter.rebuild(3, sink -> LongStream.range(1, 4).forEach(i -> sink.accept(cpf(i))));
+        assertEquals(0, filter.staleRatio());
+    }
+
+    private static String cpf(long i) {
+        return String.format("%011d", i * 7919);
+    }
+}
@@ -0,0 +1,84 @@
+package com.java.dnc.school_manager.service;
+
+import com.java.dnc.school_manager.dto.PersonName;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NameIndexTest {
+
+    @Test
+    @DisplayName("Should match names ignoring accents, case and an unfinished last word")
+    void search_ShouldFoldAccentsAndMatchPrefixes() {
+        NameIndex index = new NameIndex();
+        index.put(1L, "João Conceição", "jc@email.com");
+        index.put(2L, "Maria Souza", "maria@email.com");
+
+        assertEquals(List.of(1L), ids(index.search("JOAO conc", 10)));
+        assertEquals(List.of(1L), ids(index.search("joão", 10)));
+        assertEquals(List.of(2L), ids(index.search("mar", 10)));
+    }
+
+    @Test
+    @DisplayName("Should tolerate typos and rank the closest name first")
+    void search_ShouldRankByTrigramOverlap() {
+        NameIndex index = new NameIndex();
+        index.put(1L, "Fernanda Oliveira", "fernanda@email.com");
+        index.put(2L, "Fernando Oliveira Santos", "fernando@email.com");
+        index.put(3L, "Carlos Pereira", "carlos@email.com");
+
+        List<NameIndex.Match> matches = index.search("fernanda olivera", 10);
+
+        assertEquals(List.of(1L, 2L), ids(matches));
+        assertTrue(matches.get(0).score() > matches.get(1).score());
+    }
+
+    @Test
+    @DisplayName("Should find records by the local part of the e-mail")
+    void search_ShouldMatchEmail() {
+        NameIndex index = new NameIndex();
+        index.put(1L, "Ana Lima", "prof.ana.lima@escola.com");
+        index.put(2L, "Bruno Reis", "bruno@escola.com");
+
+        assertEquals(List.of(1L), ids(index.search("prof.ana", 10)));
+        assertTrue(index.search("escola", 10).isEmpty());
+        assertTrue(index.search("  --  ", 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should reflect updates and removals")
+    void put_ShouldReplacePreviousText() {
+        NameIndex index = new NameIndex();
+        index.put(1L, "Lucas Alves", "lucas@email.com");
+        index.put(1L, "Lucas Almeida", "lucas@email.com");
+        index.put(2L, "Lucia Alves", "lucia@email.com");
+        index.remove(2L);
+
+        assertEquals(List.of(1L), ids(index.search("lucas almeida", 10)));
+        assertTrue(index.search("lucia alves", 10).isEmpty());
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    @DisplayName("Should keep updates made while a rebuild is streaming the table")
+    void rebuild_ShouldReplayConcurrentUpdates() {
+        NameIndex index = new NameIndex();
+        index.rebuild(sink -> {
+            sink.accept(new PersonName(1L, "Rafael Gomes", "rafael@email.com"));
+            // Written by a request after the stream had already read these rows
+            index.remove(1L);
+            index.put(2L, "Paula Ribeiro", "paula@email.com");
+        });
+
+        assertTrue(index.isReady());
+        assertTrue(index.search("rafael", 10).isEmpty());
+        assertEquals(List.of(2L), ids(index.search("paula", 10)));
+    }
+
+    private static List<Long> ids(List<NameIndex.Match> matches) {
+        return matches.stream().map(NameIndex.Match::id).toList();
+    }
+}
@@ -1,26 +1,59 @@
 package com.java.dnc.school_manager.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.java.dnc.school_manager.dto.BulkImportResult;
+import com.java.dnc.school_manager.dto.ChangeEvent;
+import com.java.dnc.school_manager.dto.BulkRowResult;
+import com.java.dnc.school_manager.dto.CursorPageResponse;
+import com.java.dnc.school_manager.dto.LookupResult;
+import com.java.dnc.school_manager.dto.PageResponse;
 import com.java.dnc.school_manager.dto.StudentDTO;
 import com.java.dnc.school_manager.dto.ViaCepResponse;
+import com.java.dnc.school_manager.exception.CepServiceUnavailableException;
 import com.java.dnc.school_manager.exception.DuplicateCpfException;
 import com.java.dnc.school_manager.exception.InvalidCepException;
+import com.java.dnc.school_manager.exception.InvalidCpfException;
+import com.java.dnc.school_manager.exception.PreconditionFailedException;
 import com.java.dnc.school_manager.exception.ResourceNotFoundException;
+import com.java.dnc.school_manager.model.AddressStatus;
 import com.java.dnc.school_manager.model.Student;
 import com.java.dnc.school_manager.repository.StudentRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
@@ -33,6 +66,25 @@ class StudentServiceTest {
     @Mock
     private ViaCepService viaCepService;
 
+    @Mock
+    private Validator validator;
+
+    @Spy
+    private ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+
+    @Mock
+    private EntityManager entityManager;
+
+    // Not rebuilt yet, so every CPF is a "maybe" and goes to the repository
+    @Spy
+    private CpfBloomFilter studentCpfFilter = new CpfBloomFilter(1000, 0.01);
+
+    @Spy
+    private NameIndex studentNameIndex = new NameIndex();
+
+    @Spy
+    private ChangeFeed studentChangeFeed = new ChangeFeed("students", 100, 10, 10, Duration.ofMinutes(1), Duration.ofSeconds(15));
+
     @InjectMocks
     private StudentService studentService;
 
@@ -45,13 +97,13 @@ class StudentServiceTest {
         student = new Student();
         student.setId(1L);
         student.setName("Joao Silva");
-        student.setCpf("12345678900");
+        student.setCpf("12345678909");
         student.setEmail("joao@email.com");
         student.setPhoneNumber("11999999999");
 
         studentDTO = new StudentDTO();
         studentDTO.setName("Joao Silva");
-        studentDTO.setCpf("12345678900");
+        studentDTO.setCpf("12345678909");
         studentDTO.setEmail("joao@email.com");
         studentDTO.setPhoneNumber("11999999999");
         studentDTO.setCep("01310100");
@@ -77,6 +129,64 @@ class StudentServiceTest {
         verify(studentRepository, times(1)).findAll();
     }
 
+    @Test
+    @DisplayName("Should return a sorted page of students")
+    void findPage_ShouldReturnSortedPage() {
+        Pageable expected = PageRequest.of(2, 10, Sort.by(Sort.Direction.DESC, "name").and(Sort.by("id")));
+        when(studentRepository.findAll(expected)).thenReturn(new PageImpl<>(List.of(student), expected, 21));
+
+        PageResponse<Student> result = studentService.findPage(2, 10, "name,desc");
+
+        assertEquals(1, result.getContent().size());
+        assertEquals(21, result.getTotalElements());
+        assertEquals(3, result.getTotalPages());
+    }
+
+    @Test
+    @DisplayName("Should reject sorting by unknown fields")
+    void findPage_ShouldThrowException_WhenSortFieldIsUnknown() {
+        assertThrows(IllegalArgumentException.class, () -> studentService.findPage(0, 10, "password"));
+        verify(studentRepository, never()).findAll(any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("Should return keyset page with next cursor")
+    void findAfter_ShouldReturnNextCursor_WhenMoreRowsExist() {
+        Student next = new Student();
+        next.setId(2L);
+        when(studentRepository.findByIdGreaterThanOrderByIdAsc(0L, Limit.of(2))).thenReturn(List.of(student, next));
+
+        CursorPageResponse<Student> first = studentService.findAfter("", 1);
+
+        assertEquals(1, first.getContent().size());
+        assertNotNull(first.getNextCursor());
+
+        when(studentRepository.findByIdGreaterThanOrderByIdAsc(1L, Limit.of(2))).thenReturn(List.of(next));
+        CursorPageResponse<Student> second = studentService.findAfter(first.getNextCursor(), 1);
+
+        assertEquals(2L, second.getContent().get(0).getId());
+        assertNull(second.getNextCursor());
+    }
+
+    @Test
+    @DisplayName("Should export students as NDJSON and detach each row")
+    void exportNdjson_ShouldWriteOneLinePerStudent() throws Exception {
+        Student second = new Student();
+        second.setId(2L);
+        second.setName("Ana Souza");
+        when(studentRepository.streamAll()).thenReturn(Stream.of(student, second));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long count = studentService.exportNdjson(out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, count);
+        assertEquals(2, lines.length);
+        assertTrue(lines[1].startsWith("{\"id\":2,\"name\":\"Ana Souza\""));
+        verify(entityManager, times(1)).detach(student);
+        verify(entityManager, times(1)).detach(second);
+    }
+
     @Test
     @DisplayName("Should return student by ID")
     void findById_ShouldReturnStudent_WhenIdExists() {
@@ -108,9 +218,54 @@ class StudentServiceTest {
         Student result = studentService.create(studentDTO);
 
         assertNotNull(result);
+        ArgumentCaptor<Student> saved = ArgumentCaptor.forClass(Student.class);
+        verify(studentRepository).save(saved.capture());
+        assertEquals(AddressStatus.RESOLVED, saved.getValue().getAddress().getAddressStatus());
         verify(studentRepository, times(1)).existsByCpf(studentDTO.getCpf());
         verify(viaCepService, times(1)).fetchAddress(studentDTO.getCep());
         verify(studentRepository, times(1)).save(any(Student.class));
+        verify(studentChangeFeed).publish(ChangeEvent.Action.CREATED, student);
+    }
+
+    @Test
+    @DisplayName("Should check and store a masked CPF by its digits only")
+    void create_ShouldNormalizeCpf_WhenMasked() {
+        studentDTO.setCpf("123.456.789-09");
+        when(studentRepository.existsByCpf(anyString())).thenReturn(false);
+        when(viaCepService.fetchAddress(anyString())).thenReturn(viaCepResponse);
+        when(studentRepository.save(any(Student.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Student result = studentService.create(studentDTO);
+
+        assertEquals("12345678909", result.getCpf());
+        verify(studentRepository, times(1)).existsByCpf("12345678909");
+    }
+
+    @Test
+    @DisplayName("Should save student as pending without calling ViaCEP when enrichment is async")
+    void create_ShouldSavePendingAddress_WhenEnrichmentIsAsync() {
+        ReflectionTestUtils.setField(studentService, "asyncEnrichment", true);
+        when(studentRepository.existsByCpf(anyString())).thenReturn(false);
+        when(studentRepository.save(any(Student.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Student result = studentService.create(studentDTO);
+
+        assertEquals(AddressStatus.PENDING, result.getAddress().getAddressStatus());
+        assertEquals(studentDTO.getCep(), result.getAddress().getCep());
+        verify(viaCepService, never()).fetchAddress(anyString());
+    }
+
+    @Test
+    @DisplayName("Should skip the CPF query when the filter rules the CPF out")
+    void create_ShouldSkipExistsQuery_WhenFilterRulesCpfOut() {
+        studentCpfFilter.rebuild(0, sink -> { });
+        ReflectionTestUtils.setField(studentService, "asyncEnrichment", true);
+        when(studentRepository.save(any(Student.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        studentService.create(studentDTO);
+
+        verify(studentRepository, never()).existsByCpf(anyString());
+        assertTrue(studentCpfFilter.mightContain(studentDTO.getCpf()));
     }
 
     @Test
@@ -136,6 +291,50 @@ class StudentServiceTest {
         verify(studentRepository, never()).save(any(Student.class));
     }
 
+    @Test
+    @DisplayName("Should reject a CPF with wrong check digits before any lookup")
+    void create_ShouldThrowException_WhenCpfCheckDigitsAreWrong() {
+        studentDTO.setCpf("123.456.789-00");
+
+        assertThrows(InvalidCpfException.class, () -> studentService.create(studentDTO));
+        verifyNoInteractions(studentRepository, viaCepService);
+    }
+
+    @Test
+    @DisplayName("Should reject a malformed CEP before any lookup")
+    void update_ShouldThrowException_WhenCepIsMalformed() {
+        studentDTO.setCep("0131-0100");
+
+        assertThrows(InvalidCepException.class, () -> studentService.update(1L, studentDTO));
+        verifyNoInteractions(studentRepository, viaCepService);
+    }
+
+    @Test
+    @DisplayName("Should save student with client address when ViaCEP is unavailable")
+    void create_ShouldSavePendingAddress_WhenViaCepIsUnavailable() {
+        studentDTO.setStreet("Rua Informada");
+        studentDTO.setCity("Sao Paulo");
+        studentDTO.setUf("SP");
+        when(studentRepository.existsByCpf(anyString())).thenReturn(false);
+        when(viaCepService.fetchAddress(anyString())).thenThrow(new CepServiceUnavailableException("ViaCEP circuit is open"));
+        when(studentRepository.save(any(Student.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Student result = studentService.create(studentDTO);
+
+        assertEquals(AddressStatus.PENDING, result.getAddress().getAddressStatus());
+        assertEquals("Rua Informada", result.getAddress().getStreet());
+    }
+
+    @Test
+    @DisplayName("Should fail when ViaCEP is unavailable and no address was sent")
+    void create_ShouldThrowException_WhenViaCepIsUnavailableWithoutAddress() {
+        when(studentRepository.existsByCpf(anyString())).thenReturn(false);
+        when(viaCepService.fetchAddress(anyString())).thenThrow(new CepServiceUnavailableException("ViaCEP circuit is open"));
+
+        assertThrows(CepServiceUnavailableException.class, () -> studentService.create(studentDTO));
+        verify(studentRepository, never()).save(any(Student.class));
+    }
+
     @Test
     @DisplayName("Should update student successfully")
     void update_ShouldUpdateStudent_WhenDataIsValid() {
@@ -147,6 +346,45 @@ class StudentServiceTest {
 
         assertNotNull(result);
         verify(studentRepository, times(1)).save(any(Student.class));
+        verify(studentChangeFeed).publish(ChangeEvent.Action.UPDATED, student);
+    }
+
+    @Test
+    @DisplayName("Should reject the update when If-Match names an older version")
+    void update_ShouldThrowPreconditionFailed_WhenVersionIsStale() {
+        student.setVersion(3L);
+        when(studentRepository.findById(1L)).thenReturn(Optional.of(student));
+
+        assertThrows(PreconditionFailedException.class, () -> studentService.update(1L, studentDTO, 2L));
+        verify(studentRepository, never()).save(any(Student.class));
+    }
+
+    @Test
+    @DisplayName("Should look ids up in chunks of 1000 and report the missing ones")
+    void lookup_ShouldChunkIdsAndReportMissing() {
+        List<Long> ids = LongStream.rangeClosed(1, 2500).boxed().toList();
+        when(studentRepository.findAllById(anyList())).thenAnswer(invocation -> {
+            List<Long> chunk = invocation.getArgument(0);
+            return chunk.contains(1L) ? List.of(student) : List.of();
+        });
+
+        LookupResult<Student> result = studentService.lookup(ids, null);
+
+        verify(studentRepository, times(3)).findAllById(anyList());
+        assertEquals(List.of(student), result.getContent());
+        assertEquals(2499, result.getMissingIds().size());
+    }
+
+    @Test
+    @DisplayName("Should reject lookups with more than 10000 keys")
+    void lookup_ShouldThrow_WhenTooManyKeys() {
+        List<Long> ids = LongStream.rangeClosed(1, 10_001).boxed().toList();
+
+        assertThrows(IllegalArgumentException.class, () -> studentService.lookup(ids, null));
+        // Counted as sent: repeats still count towards the limit
+        assertThrows(IllegalArgumentException.class,
+                () -> studentService.lookup(List.of(1L), Collections.nCopies(10_000, "12345678909")));
+        verify(studentRepository, never()).findAllById(anyList());
     }
 
     @Test
@@ -157,5 +395,143 @@ class StudentServiceTest {
 
         assertDoesNotThrow(() -> studentService.delete(1L));
         verify(studentRepository, times(1)).delete(student);
+        verify(studentChangeFeed).publish(ChangeEvent.Action.DELETED, student);
+        verify(studentNameIndex, times(1)).remove(1L);
+    }
+
+    @Test
+    @DisplayName("Should suggest students by accent-insensitive partial name, best match first")
+    void suggest_ShouldReturnStudentsInRankOrder() {
+        Student other = new Student();
+        other.setId(2L);
+        other.setName("Joana Silveira");
+        studentNameIndex.put(1L, "João Silva", "joao@email.com");
+        studentNameIndex.put(2L, "Joana Silveira", "joana@email.com");
+        studentNameIndex.put(3L, "Pedro Costa", "pedro@email.com");
+        // The repository returns rows in its own order; the rank order is restored
+        when(studentRepository.findAllById(List.of(1L, 2L))).thenReturn(List.of(other, student));
+
+        List<Student> result = studentService.suggest("joao silv", null);
+
+        assertEquals(List.of(student, other), result);
+        verify(studentRepository, times(1)).findAllById(List.of(1L, 2L));
+        verify(studentRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    @DisplayName("Should reject a suggestion limit above the maximum")
+    void suggest_ShouldThrowException_WhenLimitIsTooLarge() {
+        assertThrows(IllegalArgumentException.class, () -> studentService.suggest("joao", 51));
+    }
+
+    @Test
+    @DisplayName("Should bulk create students with one CPF query and one CEP lookup per chunk")
+    void bulkCreate_ShouldCreateStudents_WithSetBasedChecks() {
+        StudentDTO second = new StudentDTO();
+        second.setName("Ana Souza");
+        second.setCpf("11122233396");
+        second.setEmail("ana@email.com");
+        second.setPhoneNumber("11977777777");
+        second.setCep("01310-100");
+
+        StudentDTO repeated = new StudentDTO();
+        repeated.setCpf("12345678909");
+        repeated.setCep("01310100");
+
+        when(studentRepository.findExistingCpfs(any())).thenReturn(List.of());
+        when(viaCepService.fetchAddress(anyString())).thenReturn(viaCepResponse);
+        when(studentRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        BulkImportResult result = studentService.bulkCreate(List.of(studentDTO, second, repeated).iterator());
+
+        assertEquals(3, result.getTotal());
+        assertEquals(2, result.getCreated());
+        assertEquals(1, result.getFailed());
+        assertEquals(BulkRowResult.FAILED, result.getRows().get(2).getStatus());
+        verify(studentRepository, times(1)).findExistingCpfs(Set.of("12345678909", "11122233396"));
+        // "01310-100" and "01310100" are one CEP, so one lookup
+        verify(viaCepService, times(1)).fetchAddress("01310100");
+        verify(viaCepService, never()).fetchAddress("01310-100");
+        verify(studentRepository, times(1)).saveAll(anyList());
+    }
+
+    @Test
+    @DisplayName("Should report existing CPFs and invalid CEPs in bulk create")
+    void bulkCreate_ShouldReportFailedRows() {
+        ViaCepResponse invalidCep = new ViaCepResponse();
+        invalidCep.setError("true");
+        StudentDTO second = new StudentDTO();
+        second.setCpf("11122233396");
+        second.setCep("99999999");
+
+        when(studentRepository.findExistingCpfs(any())).thenReturn(List.of("12345678909"));
+        when(viaCepService.fetchAddress("99999999")).thenReturn(invalidCep);
+
+        BulkImportResult result = studentService.bulkCreate(List.of(studentDTO, second).iterator());
+
+        assertEquals(0, result.getCreated());
+        assertEquals("CPF already registered: 12345678909", result.getRows().get(0).getMessage());
+        assertEquals("Invalid CEP: 99999999", result.getRows().get(1).getMessage());
+        verify(studentRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    @DisplayName("Should bulk create students as pending without calling ViaCEP when enrichment is async")
+    void bulkCreate_ShouldSavePendingAddresses_WhenEnrichmentIsAsync() {
+        ReflectionTestUtils.setField(studentService, "asyncEnrichment", true);
+        when(studentRepository.findExistingCpfs(any())).thenReturn(List.of());
+        when(studentRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        BulkImportResult result = studentService.bulkCreate(List.of(studentDTO).iterator());
+
+        assertEquals(1, result.getCreated());
+        ArgumentCaptor<List<Student>> saved = ArgumentCaptor.forClass(List.class);
+        verify(studentRepository).saveAll(saved.capture());
+        assertEquals(AddressStatus.PENDING, saved.getValue().get(0).getAddress().getAddressStatus());
+        assertEquals(studentDTO.getCep(), saved.getValue().get(0).getAddress().getCep());
+        verify(viaCepService, never()).fetchAddress(anyString());
+    }
+
+    @Test
+    @DisplayName("Should look the distinct CEPs of a bulk chunk up concurrently")
+    void bulkCreate_ShouldResolveCepsConcurrently() {
+        StudentDTO second = new StudentDTO();
+        second.setCpf("11122233396");
+        second.setCep("04538133");
+        // Each lookup waits for the other, so they only both succeed when running at the same time
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        when(studentRepository.findExistingCpfs(any())).thenReturn(List.of());
+        when(viaCepService.fetchAddress(anyString())).thenAnswer(invocation -> {
+            bothStarted.countDown();
+            return bothStarted.await(5, TimeUnit.SECONDS) ? viaCepResponse : null;
+        });
+        when(studentRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        BulkImportResult result = studentService.bulkCreate(List.of(studentDTO, second).iterator());
+
+        assertEquals(2, result.getCreated());
+        verify(viaCepService, times(1)).fetchAddress("01310100");
+        verify(viaCepService, times(1)).fetchAddress("04538133");
+    }
+
+    @Test
+    @DisplayName("Should accept a corrected row after a failed row with the same CPF in bulk create")
+    void bulkCreate_ShouldAcceptCorrectedRow_AfterFailedRowWithSameCpf() {
+        ViaCepResponse invalidCep = new ViaCepResponse();
+        invalidCep.setError("true");
+        StudentDTO wrongCep = new StudentDTO();
+        wrongCep.setCpf(studentDTO.getCpf());
+        wrongCep.setCep("99999999");
+
+        when(studentRepository.findExistingCpfs(any())).thenReturn(List.of());
+        when(viaCepService.fetchAddress("99999999")).thenReturn(invalidCep);
+        when(viaCepService.fetchAddress("01310100")).thenReturn(viaCepResponse);
+        when(studentRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        BulkImportResult result = studentService.bulkCreate(List.of(wrongCep, studentDTO).iterator());
+
+        assertEquals("Invalid CEP: 99999999", result.getRows().get(0).getMessage());
+        assertEquals(BulkRowResult.CREATED, result.getRows().get(1).getStatus());
+        assertEquals(1, result.getCreated());
     }
 }
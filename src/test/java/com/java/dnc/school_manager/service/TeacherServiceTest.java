@@ -1,26 +1,45 @@
 package com.java.dnc.school_manager.service;
 
+import com.java.dnc.school_manager.dto.BulkImportResult;
+import com.java.dnc.school_manager.dto.ChangeEvent;
+import com.java.dnc.school_manager.dto.CursorPageResponse;
+import com.java.dnc.school_manager.dto.LookupResult;
 import com.java.dnc.school_manager.dto.TeacherDTO;
+import com.java.dnc.school_manager.dto.TeacherSearch;
 import com.java.dnc.school_manager.dto.ViaCepResponse;
+import com.java.dnc.school_manager.exception.CepServiceUnavailableException;
 import com.java.dnc.school_manager.exception.DuplicateCpfException;
 import com.java.dnc.school_manager.exception.InvalidCepException;
+import com.java.dnc.school_manager.exception.InvalidCpfException;
+import com.java.dnc.school_manager.exception.PreconditionFailedException;
 import com.java.dnc.school_manager.exception.ResourceNotFoundException;
+import com.java.dnc.school_manager.model.AddressStatus;
 import com.java.dnc.school_manager.model.Teacher;
 import com.java.dnc.school_manager.repository.TeacherRepository;
+import jakarta.validation.Validator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.time.Duration;
+import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
@@ -33,6 +52,19 @@ class TeacherServiceTest {
     @Mock
     private ViaCepService viaCepService;
 
+    @Mock
+    private Validator validator;
+
+    // Not rebuilt yet, so every CPF is a "maybe" and goes to the repository
+    @Spy
+    private CpfBloomFilter teacherCpfFilter = new CpfBloomFilter(1000, 0.01);
+
+    @Spy
+    private NameIndex teacherNameIndex = new NameIndex();
+
+    @Spy
+    private ChangeFeed teacherChangeFeed = new ChangeFeed("teachers", 100, 10, 10, Duration.ofMinutes(1), Duration.ofSeconds(15));
+
     @InjectMocks
     private TeacherService teacherService;
 
@@ -79,6 +111,17 @@ class TeacherServiceTest {
         verify(teacherRepository, times(1)).findAll();
     }
 
+    @Test
+    @DisplayName("Should return last keyset page without cursor")
+    void findAfter_ShouldReturnLastPage() {
+        when(teacherRepository.findByIdGreaterThanOrderByIdAsc(0L, Limit.of(21))).thenReturn(List.of(teacher));
+
+        CursorPageResponse<Teacher> result = teacherService.findAfter(null, null);
+
+        assertEquals(1, result.getContent().size());
+        assertNull(result.getNextCursor());
+    }
+
     @Test
     @DisplayName("Should return teacher by ID")
     void findById_ShouldReturnTeacher_WhenIdExists() {
@@ -100,6 +143,31 @@ class TeacherServiceTest {
         verify(teacherRepository, times(1)).findById(99L);
     }
 
+    @Test
+    @DisplayName("Should index created teachers for suggestions")
+    void suggest_ShouldFindCreatedTeacher() {
+        when(teacherRepository.existsByCpf(anyString())).thenReturn(false);
+        when(viaCepService.fetchAddress(anyString())).thenReturn(viaCepResponse);
+        when(teacherRepository.save(any(Teacher.class))).thenReturn(teacher);
+        when(teacherRepository.findAllById(List.of(1L))).thenReturn(List.of(teacher));
+
+        teacherService.create(teacherDTO);
+
+        assertEquals(List.of(teacher), teacherService.suggest("Maria Santso", 5));
+        verify(teacherRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    @DisplayName("Should reject a hiring date range that ends before it starts")
+    void search_ShouldThrowException_WhenRangeIsEmpty() {
+        TeacherSearch filter = new TeacherSearch();
+        filter.setHiringFrom(LocalDate.of(2024, 6, 1));
+        filter.setHiringTo(LocalDate.of(2024, 1, 1));
+
+        assertThrows(IllegalArgumentException.class, () -> teacherService.search(filter, null, null, null));
+        verifyNoInteractions(teacherRepository);
+    }
+
     @Test
     @DisplayName("Should create teacher successfully")
     void create_ShouldCreateTeacher_WhenDataIsValid() {
@@ -110,9 +178,40 @@ class TeacherServiceTest {
         Teacher result = teacherService.create(teacherDTO);
 
         assertNotNull(result);
+        ArgumentCaptor<Teacher> saved = ArgumentCaptor.forClass(Teacher.class);
+        verify(teacherRepository).save(saved.capture());
+        assertEquals(AddressStatus.RESOLVED, saved.getValue().getAddress().getAddressStatus());
         verify(teacherRepository, times(1)).existsByCpf(teacherDTO.getCpf());
         verify(viaCepService, times(1)).fetchAddress(teacherDTO.getCep());
         verify(teacherRepository, times(1)).save(any(Teacher.class));
+        verify(teacherChangeFeed).publish(ChangeEvent.Action.CREATED, teacher);
+    }
+
+    @Test
+    @DisplayName("Should save teacher as pending without calling ViaCEP when enrichment is async")
+    void create_ShouldSavePendingAddress_WhenEnrichmentIsAsync() {
+        ReflectionTestUtils.setField(teacherService, "asyncEnrichment", true);
+        when(teacherRepository.existsByCpf(anyString())).thenReturn(false);
+        when(teacherRepository.save(any(Teacher.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Teacher result = teacherService.create(teacherDTO);
+
+        assertEquals(AddressStatus.PENDING, result.getAddress().getAddressStatus());
+        assertEquals(teacherDTO.getCep(), result.getAddress().getCep());
+        verify(viaCepService, never()).fetchAddress(anyString());
+    }
+
+    @Test
+    @DisplayName("Should skip the CPF query when the filter rules the CPF out")
+    void create_ShouldSkipExistsQuery_WhenFilterRulesCpfOut() {
+        teacherCpfFilter.rebuild(0, sink -> { });
+        ReflectionTestUtils.setField(teacherService, "asyncEnrichment", true);
+        when(teacherRepository.save(any(Teacher.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        teacherService.create(teacherDTO);
+
+        verify(teacherRepository, never()).existsByCpf(anyString());
+        assertTrue(teacherCpfFilter.mightContain(teacherDTO.getCpf()));
     }
 
     @Test
@@ -138,6 +237,50 @@ class TeacherServiceTest {
         verify(teacherRepository, never()).save(any(Teacher.class));
     }
 
+    @Test
+    @DisplayName("Should reject a CPF with wrong check digits before any lookup")
+    void create_ShouldThrowException_WhenCpfCheckDigitsAreWrong() {
+        teacherDTO.setCpf("123.456.789-00");
+
+        assertThrows(InvalidCpfException.class, () -> teacherService.create(teacherDTO));
+        verifyNoInteractions(teacherRepository, viaCepService);
+    }
+
+    @Test
+    @DisplayName("Should reject a malformed CEP before any lookup")
+    void update_ShouldThrowException_WhenCepIsMalformed() {
+        teacherDTO.setCep("0131-0100");
+
+        assertThrows(InvalidCepException.class, () -> teacherService.update(1L, teacherDTO));
+        verifyNoInteractions(teacherRepository, viaCepService);
+    }
+
+    @Test
+    @DisplayName("Should save teacher with client address when ViaCEP is unavailable")
+    void create_ShouldSavePendingAddress_WhenViaCepIsUnavailable() {
+        teacherDTO.setStreet("Rua Informada");
+        teacherDTO.setCity("Sao Paulo");
+        teacherDTO.setUf("SP");
+        when(teacherRepository.existsByCpf(anyString())).thenReturn(false);
+        when(viaCepService.fetchAddress(anyString())).thenThrow(new CepServiceUnavailableException("ViaCEP circuit is open"));
+        when(teacherRepository.save(any(Teacher.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Teacher result = teacherService.create(teacherDTO);
+
+        assertEquals(AddressStatus.PENDING, result.getAddress().getAddressStatus());
+        assertEquals("Rua Informada", result.getAddress().getStreet());
+    }
+
+    @Test
+    @DisplayName("Should fail when ViaCEP is unavailable and no address was sent")
+    void create_ShouldThrowException_WhenViaCepIsUnavailableWithoutAddress() {
+        when(teacherRepository.existsByCpf(anyString())).thenReturn(false);
+        when(viaCepService.fetchAddress(anyString())).thenThrow(new CepServiceUnavailableException("ViaCEP circuit is open"));
+
+        assertThrows(CepServiceUnavailableException.class, () -> teacherService.create(teacherDTO));
+        verify(teacherRepository, never()).save(any(Teacher.class));
+    }
+
     @Test
     @DisplayName("Should update teacher successfully")
     void update_ShouldUpdateTeacher_WhenDataIsValid() {
@@ -149,6 +292,32 @@ class TeacherServiceTest {
 
         assertNotNull(result);
         verify(teacherRepository, times(1)).save(any(Teacher.class));
+        verify(teacherChangeFeed).publish(ChangeEvent.Action.UPDATED, teacher);
+    }
+
+    @Test
+    @DisplayName("Should fail the precondition when the teacher changes between read and write")
+    void update_ShouldThrowPreconditionFailed_WhenWriteConflicts() {
+        teacher.setVersion(2L);
+        when(teacherRepository.findById(1L)).thenReturn(Optional.of(teacher));
+        when(viaCepService.fetchAddress(anyString())).thenReturn(viaCepResponse);
+        when(teacherRepository.save(any(Teacher.class))).thenThrow(new ObjectOptimisticLockingFailureException(Teacher.class, 1L));
+
+        assertThrows(PreconditionFailedException.class, () -> teacherService.update(1L, teacherDTO, 2L));
+    }
+
+    @Test
+    @DisplayName("Should look CPFs up in one query, skipping the ones the filter rules out")
+    void lookup_ShouldQueryOnlyCandidateCpfs() {
+        teacherCpfFilter.rebuild(1, sink -> sink.accept("98765432100"));
+        when(teacherRepository.findByCpfIn(anyList())).thenReturn(List.of(teacher));
+
+        LookupResult<Teacher> result = teacherService.lookup(List.of(1L), List.of("987.654.321-00", "12345678909", "bad"));
+
+        verify(teacherRepository).findByCpfIn(List.of("98765432100"));
+        assertEquals(List.of(teacher), result.getContent());
+        assertEquals(List.of(1L), result.getMissingIds());
+        assertEquals(List.of("12345678909", "bad"), result.getMissingCpfs());
     }
 
     @Test
@@ -159,5 +328,43 @@ class TeacherServiceTest {
 
         assertDoesNotThrow(() -> teacherService.delete(1L));
         verify(teacherRepository, times(1)).delete(teacher);
+        verify(teacherChangeFeed).publish(ChangeEvent.Action.DELETED, teacher);
+    }
+
+    @Test
+    @DisplayName("Should bulk create teachers and skip CPFs repeated in the import")
+    void bulkCreate_ShouldCreateTeachers() {
+        TeacherDTO repeated = new TeacherDTO();
+        repeated.setCpf("98765432100");
+        repeated.setCep("04538133");
+
+        when(teacherRepository.findExistingCpfs(any())).thenReturn(List.of());
+        when(viaCepService.fetchAddress(anyString())).thenReturn(viaCepResponse);
+        when(teacherRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        BulkImportResult result = teacherService.bulkCreate(List.of(teacherDTO, repeated).iterator());
+
+        assertEquals(2, result.getTotal());
+        assertEquals(1, result.getCreated());
+        assertEquals("CPF repeated in import: 98765432100", result.getRows().get(1).getMessage());
+        verify(viaCepService, times(1)).fetchAddress("04538133");
+        verify(teacherRepository, times(1)).saveAll(anyList());
+    }
+
+    @Test
+    @DisplayName("Should bulk create teachers as pending without calling ViaCEP when enrichment is async")
+    void bulkCreate_ShouldSavePendingAddresses_WhenEnrichmentIsAsync() {
+        ReflectionTestUtils.setField(teacherService, "asyncEnrichment", true);
+        when(teacherRepository.findExistingCpfs(any())).thenReturn(List.of());
+        when(teacherRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        BulkImportResult result = teacherService.bulkCreate(List.of(teacherDTO).iterator());
+
+        assertEquals(1, result.getCreated());
+        ArgumentCaptor<List<Teacher>> saved = ArgumentCaptor.forClass(List.class);
+        verify(teacherRepository).saveAll(saved.capture());
+        assertEquals(AddressStatus.PENDING, saved.getValue().get(0).getAddress().getAddressStatus());
+        assertEquals(teacherDTO.getCep(), saved.getValue().get(0).getAddress().getCep());
+        verify(viaCepService, never()).fetchAddress(anyString());
     }
 }
@@ -0,0 +1,297 @@
+package com.java.dnc.school_manager.service;
+
+import com.java.dnc.school_manager.dto.ViaCepResponse;
+import com.java.dnc.school_manager.exception.CepServiceUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ViaCepServiceTest {
+
+    private static final String URL = "https://viacep.com.br/ws/{cep}/json/";
+    private static final String CEP = "01310100";
+
+    @Mock
+    private RestTemplate restTemplate;
+
+    @Mock
+    private CepAddressStore cepAddressStore;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private ViaCepService viaCepService;
+    private ViaCepResponse viaCepResponse;
+
+    @BeforeEach
+    void setUp() {
+        viaCepService = new ViaCepService(restTemplate, cepAddressStore,
+                new CircuitBreaker(3, Duration.ofMinutes(1)),
+                new RetryPolicy(3, Duration.ofMillis(1), Duration.ofMillis(5), 0.1, 10), meterRegistry,
+                100, Duration.ofHours(1), Duration.ofMinutes(1), 1, Duration.ofMillis(100), Duration.ofSeconds(5));
+        ReflectionTestUtils.setField(viaCepService, "viaCepUrl", "https://viacep.com.br/ws/");
+
+        viaCepResponse = new ViaCepResponse();
+        viaCepResponse.setCep("01310-100");
+        viaCepResponse.setStreet("Avenida Paulista");
+        viaCepResponse.setCity("Sao Paulo");
+        viaCepResponse.setUf("SP");
+    }
+
+    @Test
+    @DisplayName("Should call ViaCEP only once for repeated CEPs")
+    void fetchAddress_ShouldUseCache_WhenCepRepeats() {
+        when(restTemplate.getForObject(eq(URL), eq(ViaCepResponse.class), eq(CEP))).thenReturn(viaCepResponse);
+
+        ViaCepResponse first = viaCepService.fetchAddress("01310-100");
+        ViaCepResponse second = viaCepService.fetchAddress("01310100");
+
+        assertSame(first, second);
+        verify(restTemplate, times(1)).getForObject(URL, ViaCepResponse.class, CEP);
+        assertEquals(1, viaCepService.getCacheStats().getHits());
+        assertEquals(1, viaCepService.getCacheStats().getMisses());
+    }
+
+    @Test
+    @DisplayName("Should cache invalid CEP responses")
+    void fetchAddress_ShouldCacheErrorResponses() {
+        ViaCepResponse invalidCep = new ViaCepResponse();
+        invalidCep.setError("true");
+        when(restTemplate.getForObject(eq(URL), eq(ViaCepResponse.class), eq(CEP))).thenReturn(invalidCep);
+
+        viaCepService.fetchAddress("01310100");
+        ViaCepResponse result = viaCepService.fetchAddress("01310100");
+
+        assertNotNull(result.getError());
+        verify(restTemplate, times(1)).getForObject(URL, ViaCepResponse.class, CEP);
+    }
+
+    @Test
+    @DisplayName("Should treat an empty ViaCEP body as an invalid CEP and cache it")
+    void fetchAddress_ShouldReturnError_WhenViaCepBodyIsEmpty() {
+        when(restTemplate.getForObject(eq(URL), eq(ViaCepResponse.class), eq(CEP))).thenReturn(null);
+
+        viaCepService.fetchAddress("01310100");
+        ViaCepResponse result = viaCepService.fetchAddress("01310100");
+
+        assertNotNull(result.getError());
+        verify(restTemplate, times(1)).getForObject(URL, ViaCepResponse.class, CEP);
+    }
+
+    @Test
+    @DisplayName("Should use the local CEP store before calling ViaCEP")
+    void fetchAddress_ShouldUseStore_WhenCepIsIndexed() {
+        when(cepAddressStore.get("01310100")).thenReturn(viaCepResponse);
+
+        ViaCepResponse result = viaCepService.fetchAddress("01310-100");
+
+        assertEquals("Avenida Paulista", result.getStreet());
+        verify(restTemplate, never()).getForObject(anyString(), eq(ViaCepResponse.class), anyString());
+    }
+
+    @Test
+    @DisplayName("Should save ViaCEP results in the local CEP store")
+    void fetchAddress_ShouldPopulateStore_WhenCepIsResolved() {
+        when(restTemplate.getForObject(eq(URL), eq(ViaCepResponse.class), eq(CEP))).thenReturn(viaCepResponse);
+
+        viaCepService.fetchAddress("01310100");
+
+        verify(cepAddressStore, times(1)).put("01310100", viaCepResponse);
+    }
+
+    @Test
+    @DisplayName("Should call ViaCEP again after the cache is cleared")
+    void clearCache_ShouldForceNewLookup() {
+        when(restTemplate.getForObject(eq(URL), eq(ViaCepResponse.class), eq(CEP))).thenReturn(viaCepResponse);
+
+        viaCepService.fetchAddress("01310100");
+        viaCepService.clearCache();
+        viaCepService.fetchAddress("01310100");
+
+        verify(restTemplate, times(2)).getForObject(URL, ViaCepResponse.class, CEP);
+    }
+
+    @Test
+    @DisplayName("Should share one ViaCEP call between concurrent lookups of the same CEP")
+    void fetchAddress_ShouldSingleFlight_WhenCalledConcurrently() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(restTemplate.getForObject(eq(URL), eq(ViaCepResponse.class), eq(CEP))).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return viaCepResponse;
+        });
+
+        List<Future<ViaCepResponse>> results = new ArrayList<>();
+        try (ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 20; i++) {
+                results.add(callers.submit(() -> viaCepService.fetchAddress("01310100")));
+            }
+            release.countDown();
+            for (Future<ViaCepResponse> result : results) {
+                assertSame(viaCepResponse, result.get(5, TimeUnit.SECONDS));
+            }
+        }
+        verify(restTemplate, times(1)).getForObject(URL, ViaCepResponse.class, CEP);
+    }
+
+    @Test
+    @DisplayName("Should fail fast when the ViaCEP concurrency limit is exhausted")
+    void fetchAddress_ShouldThrowException_WhenConcurrencyLimitIsReached() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(restTemplate.getForObject(eq(URL), eq(ViaCepResponse.class), eq(CEP))).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return viaCepResponse;
+        });
+
+        try (ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<ViaCepResponse> slow = callers.submit(() -> viaCepService.fetchAddress("01310100"));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            assertThrows(CepServiceUnavailableException.class, () -> viaCepService.fetchAddress("04538133"));
+
+            release.countDown();
+            assertSame(viaCepResponse, slow.get(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    @DisplayName("Should give up when a lookup exceeds the total timeout")
+    void fetchAddress_ShouldThrowException_WhenTotalTimeoutExpires() {
+        ViaCepService slowService = new ViaCepService(restTemplate, cepAddressStore,
+                new CircuitBreaker(3, Duration.ofMinutes(1)),
+                new RetryPolicy(3, Duration.ofMillis(1), Duration.ofMillis(5), 0.1, 10), meterRegistry,
+                100, Duration.ofHours(1), Duration.ofMinutes(1), 1, Duration.ofMillis(100), Duration.ofMillis(50));
+        ReflectionTestUtils.setField(slowService, "viaCepUrl", "https://viacep.com.br/ws/");
+        CountDownLatch release = new CountDownLatch(1);
+        when(restTemplate.getForObject(eq(URL), eq(ViaCepResponse.class), eq(CEP))).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return viaCepResponse;
+        });
+
+        assertThrows(CepServiceUnavailableException.class, () -> slowService.fetchAddress("01310100"));
+        release.countDown();
+        assertEquals(0, slowService.getHttpStats().getFailures());
+        slowService.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should retry transient ViaCEP failures")
+    void fetchAddress_ShouldRetry_WhenViaCepFailsOnce() {
+        when(restTemplate.getForObject(eq(URL), eq(ViaCepResponse.class), eq(CEP)))
+                .thenThrow(new ResourceAccessException("Connection reset"))
+                .thenReturn(viaCepResponse);
+
+        ViaCepResponse result = viaCepService.fetchAddress("01310100");
+
+        assertSame(viaCepResponse, result);
+        verify(restTemplate, times(2)).getForObject(URL, ViaCepResponse.class, CEP);
+        assertEquals("CLOSED", viaCepService.getHttpStats().getCircuitState());
+    }
+
+    @Test
+    @DisplayName("Should open the circuit and stop calling ViaCEP after repeated failures")
+    void fetchAddress_ShouldOpenCircuit_WhenViaCepKeepsFailing() {
+        when(restTemplate.getForObject(eq(URL), eq(ViaCepResponse.class), eq(CEP)))
+                .thenThrow(new ResourceAccessException("Connection refused"));
+
+        assertThrows(CepServiceUnavailableException.class, () -> viaCepService.fetchAddress("01310100"));
+        assertThrows(CepServiceUnavailableException.class, () -> viaCepService.fetchAddress("01310100"));
+
+        verify(restTemplate, times(3)).getForObject(URL, ViaCepResponse.class, CEP);
+        assertEquals("OPEN", viaCepService.getHttpStats().getCircuitState());
+    }
+
+    @Test
+    @DisplayName("Should treat ViaCEP 400 answers as invalid CEP without retrying")
+    void fetchAddress_ShouldReturnError_WhenViaCepRejectsCep() {
+        when(restTemplate.getForObject(eq(URL), eq(ViaCepResponse.class), eq(CEP)))
+                .thenThrow(new HttpClientErrorException(HttpStatus.BAD_REQUEST));
+
+        ViaCepResponse result = viaCepService.fetchAddress("01310100");
+
+        assertNotNull(result.getError());
+        verify(restTemplate, times(1)).getForObject(URL, ViaCepResponse.class, CEP);
+    }
+
+    @Test
+    @DisplayName("Should retry ViaCEP 429 answers after Retry-After instead of marking the CEP invalid")
+    void fetchAddress_ShouldRetry_WhenViaCepIsRateLimiting() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, "1");
+        when(restTemplate.getForObject(eq(URL), eq(ViaCepResponse.class), eq(CEP)))
+                .thenThrow(HttpClientErrorException.create(HttpStatus.TOO_MANY_REQUESTS, "Too Many Requests", headers, null, null))
+                .thenReturn(viaCepResponse);
+
+        long start = System.nanoTime();
+        ViaCepResponse result = viaCepService.fetchAddress("01310100");
+
+        assertSame(viaCepResponse, result);
+        assertTrue(System.nanoTime() - start >= TimeUnit.SECONDS.toNanos(1), "waited for Retry-After");
+        verify(restTemplate, times(2)).getForObject(URL, ViaCepResponse.class, CEP);
+    }
+
+    @Test
+    @DisplayName("Should report ViaCEP as unavailable when it keeps refusing with a non-CEP 4xx")
+    void fetchAddress_ShouldThrowException_WhenViaCepKeepsRefusing() {
+        when(restTemplate.getForObject(eq(URL), eq(ViaCepResponse.class), eq(CEP)))
+                .thenThrow(new HttpClientErrorException(HttpStatus.FORBIDDEN));
+
+        assertThrows(CepServiceUnavailableException.class, () -> viaCepService.fetchAddress("01310100"));
+
+        verify(restTemplate, times(3)).getForObject(URL, ViaCepResponse.class, CEP);
+        verify(cepAddressStore, never()).put(anyString(), any());
+    }
+
+    @Test
+    @DisplayName("Should answer malformed CEPs locally without calling ViaCEP")
+    void fetchAddress_ShouldNotCallViaCep_WhenCepIsMalformed() {
+        ViaCepResponse result = viaCepService.fetchAddress("0131-0100");
+
+        assertNotNull(result.getError());
+        assertEquals(1, meterRegistry.get("viacep.lookup").tag("outcome", "invalid").timer().count());
+        verifyNoInteractions(restTemplate, cepAddressStore);
+    }
+
+    @Test
+    @DisplayName("Should time lookups by outcome")
+    void fetchAddress_ShouldRecordLookupOutcome() {
+        ViaCepResponse invalidCep = new ViaCepResponse();
+        invalidCep.setError("true");
+        when(restTemplate.getForObject(eq(URL), eq(ViaCepResponse.class), eq(CEP))).thenReturn(viaCepResponse);
+        when(restTemplate.getForObject(eq(URL), eq(ViaCepResponse.class), eq("99999999"))).thenReturn(invalidCep);
+
+        viaCepService.fetchAddress(CEP);
+        viaCepService.fetchAddress(CEP);
+        viaCepService.fetchAddress("99999999");
+
+        assertEquals(1, meterRegistry.get("viacep.lookup").tag("outcome", "miss").timer().count());
+        assertEquals(1, meterRegistry.get("viacep.lookup").tag("outcome", "hit").timer().count());
+        assertEquals(1, meterRegistry.get("viacep.lookup").tag("outcome", "invalid").timer().count());
+    }
+}
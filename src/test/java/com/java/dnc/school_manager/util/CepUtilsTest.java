@@ -0,0 +1,39 @@
+package com.java.dnc.school_manager.util;
+
+import com.java.dnc.school_manager.exception.InvalidCepException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CepUtilsTest {
+
+    @Test
+    @DisplayName("Should reduce masked and unmasked CEPs to the same key")
+    void normalize_ShouldStripMask() {
+        assertEquals("01310100", CepUtils.normalize("01310-100"));
+        assertEquals("01310100", CepUtils.normalize("01.310-100"));
+        assertEquals("01310100", CepUtils.normalize(" 01310100 "));
+    }
+
+    @Test
+    @DisplayName("Should return the same instance when the CEP is already clean")
+    void normalizeOrNull_ShouldKeepCleanInput() {
+        String cep = "04538133";
+        assertSame(cep, CepUtils.normalizeOrNull(cep));
+    }
+
+    @Test
+    @DisplayName("Should reject malformed and unassigned CEPs")
+    void normalize_ShouldThrow_WhenInvalid() {
+        assertNull(CepUtils.normalizeOrNull("0131010"));
+        assertNull(CepUtils.normalizeOrNull("013101000"));
+        assertNull(CepUtils.normalizeOrNull("0131-0100"));
+        assertNull(CepUtils.normalizeOrNull("01310--100"));
+        assertNull(CepUtils.normalizeOrNull("01310-10a"));
+        assertNull(CepUtils.normalizeOrNull("00999-999"));
+        assertNull(CepUtils.normalizeOrNull(null));
+        assertFalse(CepUtils.isValid(""));
+        assertThrows(InvalidCepException.class, () -> CepUtils.normalize("abc"));
+    }
+}
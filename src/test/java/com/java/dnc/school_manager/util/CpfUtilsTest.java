@@ -0,0 +1,63 @@
+package com.java.dnc.school_manager.util;
+
+import com.java.dnc.school_manager.exception.InvalidCpfException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CpfUtilsTest {
+
+    @Test
+    @DisplayName("Should reduce masked and unmasked CPFs to the same key")
+    void normalize_ShouldStripMask() {
+        assertEquals("12345678909", CpfUtils.normalize("123.456.789-09"));
+        assertEquals("12345678909", CpfUtils.normalize(" 12345678909 "));
+        assertEquals(CpfUtils.toNumber("123.456.789-09"), CpfUtils.toNumber("12345678909"));
+    }
+
+    @Test
+    @DisplayName("Should reject values that are not 11 digits")
+    void normalize_ShouldThrow_WhenMalformed() {
+        assertThrows(InvalidCpfException.class, () -> CpfUtils.normalize("1234567890"));
+        assertThrows(InvalidCpfException.class, () -> CpfUtils.normalize("123.456.789-0a"));
+        assertThrows(InvalidCpfException.class, () -> CpfUtils.normalize(null));
+        assertEquals("abc", CpfUtils.normalizeOrKeep("abc"));
+    }
+
+    @Test
+    @DisplayName("Should keep leading zeros when converting back from the stored number")
+    void fromNumber_ShouldPadWithZeros() {
+        assertEquals(1234567890L, CpfUtils.toNumber("01234567890"));
+        assertEquals("01234567890", CpfUtils.fromNumber(1234567890L));
+        assertThrows(InvalidCpfException.class, () -> CpfUtils.fromNumber(100_000_000_000L));
+    }
+
+    @Test
+    @DisplayName("Should accept only CPFs whose check digits match")
+    void isValid_ShouldCheckDigits() {
+        assertTrue(CpfUtils.isValid("123.456.789-09"));
+        assertTrue(CpfUtils.isValid("52998224725"));
+        assertFalse(CpfUtils.isValid("123.456.789-00"));
+        assertFalse(CpfUtils.isValid("111.111.111-11"));
+        assertFalse(CpfUtils.isValid("00000000000"));
+        assertFalse(CpfUtils.isValid("123.456.78-909"));
+        assertTrue(CpfUtils.isWellFormed("12345678900"));
+    }
+
+    @Test
+    @DisplayName("Should reject wrong check digits in requireValid but not in normalize")
+    void requireValid_ShouldThrow_WhenCheckDigitsAreWrong() {
+        assertEquals("12345678909", CpfUtils.requireValid("123.456.789-09"));
+        assertThrows(InvalidCpfException.class, () -> CpfUtils.requireValid("123.456.789-00"));
+        assertEquals("12345678900", CpfUtils.normalize("123.456.789-00"));
+    }
+
+    @Test
+    @DisplayName("Should append the check digits to a 9-digit base")
+    void withCheckDigits_ShouldComputeBothDigits() {
+        assertEquals(12345678909L, CpfUtils.withCheckDigits(123456789L));
+        assertEquals(52998224725L, CpfUtils.withCheckDigits(529982247L));
+        assertThrows(InvalidCpfException.class, () -> CpfUtils.withCheckDigits(1_000_000_000L));
+    }
+}